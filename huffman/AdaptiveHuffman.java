@@ -0,0 +1,170 @@
+package huffman;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Single-pass, adaptive Huffman coding: no training corpus or pre-scan is
+ * needed, because encoder and decoder start from the same empty model, count
+ * the characters they have coded so far, and rebuild their codes from those
+ * counts at the same points in the message. Characters not yet in the model
+ * are sent as an escape code followed by the raw 16-bit char.
+ *
+ * Rebuilds happen after 256 characters, then at doubling intervals up to the
+ * configured rebuild interval. Once the counts grow large they are halved at
+ * each rebuild, so the model keeps tracking shifts in the distribution. The
+ * model's alphabet is the escape plus the characters seen so far, in order of
+ * first appearance, so a rebuild costs time in the number of distinct
+ * characters seen rather than the size of the char alphabet.
+ */
+public class AdaptiveHuffman {
+
+	public static final int DEFAULT_REBUILD_INTERVAL = 1 << 16;
+
+	// The escape is always symbol 0 of the model's alphabet
+	private static final int ESCAPE = 0;
+	private static final int FIRST_REBUILD = 256, HALVING_THRESHOLD = 1 << 20;
+
+	// Enough for every char plus the escape to have a code, while keeping
+	// secondary decoding tables small
+	private static final int MAX_CODE_LENGTH = 20;
+
+	private AdaptiveHuffman() {
+	}
+
+	public static byte[] compress(String message) {
+		return compress(message, DEFAULT_REBUILD_INTERVAL);
+	}
+
+	/**
+	 * Compresses the given message in a single pass.
+	 *
+	 * @param message         String representing the corpus to compress.
+	 * @param rebuildInterval Most characters coded between model rebuilds
+	 * @return {@code byte[]} formatted as: varints for the message length and the
+	 *         rebuild interval, then the coded bits, 0-padded to a byte.
+	 */
+	public static byte[] compress(String message, int rebuildInterval) {
+		Model model = new Model(rebuildInterval);
+		BitWriter writer = new BitWriter(message.length() / 2 + 16);
+		writer.writeVarint(message.length());
+		writer.writeVarint(rebuildInterval);
+		for (int i = 0; i < message.length(); i++) {
+			char c = message.charAt(i);
+			int symbol = model.symbolOf[c];
+			if (symbol != ESCAPE && symbol < model.lengths.length) {
+				writer.write(model.codes[symbol], model.lengths[symbol]);
+			} else {
+				writer.write(model.codes[ESCAPE], model.lengths[ESCAPE]);
+				writer.write(c, 16);
+				model.escaped();
+			}
+			model.update(c);
+		}
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Decompresses the output of compress, replaying the encoder's model updates.
+	 *
+	 * @param compressedMsg {@code byte[]} as returned by compress
+	 * @return Decompressed String representation of the message
+	 */
+	public static String decompress(byte[] compressedMsg) {
+		ByteBuffer header = ByteBuffer.wrap(compressedMsg);
+		long length = Varint.read(header), rebuildInterval = Varint.read(header);
+		if (length > Integer.MAX_VALUE - 8 || rebuildInterval < 1 || rebuildInterval > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Corrupt adaptive Huffman header");
+		}
+
+		Model model = new Model((int) rebuildInterval);
+		BitReader in = new BitReader(compressedMsg, header.position(), compressedMsg.length);
+		char[] output = new char[(int) length];
+		for (int i = 0; i < output.length; i++) {
+			int symbol = model.table.next(in);
+			char c;
+			if (symbol == ESCAPE) {
+				c = (char) in.read(16);
+				model.escaped();
+			} else {
+				c = model.chars[symbol];
+			}
+			output[i] = c;
+			model.update(c);
+		}
+		return new String(output);
+	}
+
+	/**
+	 * Character counts and the code built from them, kept identically by the
+	 * encoder and decoder. Characters are numbered from 1 in order of first
+	 * appearance; only characters seen before the last rebuild have codes.
+	 */
+	private static class Model {
+
+		// Each char's symbol in the model's alphabet (ESCAPE if not yet seen), and
+		// the char behind each symbol
+		final int[] symbolOf = new int[Character.MAX_VALUE + 1];
+		char[] chars = new char[64];
+		int[] counts = new int[64];
+		int symbols = 1;
+
+		final int maxInterval;
+		int interval, untilRebuild;
+		long total;
+		int[] codes;
+		byte[] lengths;
+		DecodeTable table;
+
+		Model(int maxInterval) {
+			if (maxInterval < 1) {
+				throw new IllegalArgumentException("Rebuild interval must be positive: " + maxInterval);
+			}
+			this.maxInterval = maxInterval;
+			counts[ESCAPE] = 1;
+			interval = Math.min(FIRST_REBUILD, maxInterval);
+			untilRebuild = interval;
+			rebuild();
+		}
+
+		void escaped() {
+			counts[ESCAPE]++;
+		}
+
+		void update(char c) {
+			int symbol = symbolOf[c];
+			if (symbol == ESCAPE) {
+				if (symbols == counts.length) {
+					counts = Arrays.copyOf(counts, symbols * 2);
+					chars = Arrays.copyOf(chars, symbols * 2);
+				}
+				symbol = symbols++;
+				symbolOf[c] = symbol;
+				chars[symbol] = c;
+			}
+			counts[symbol]++;
+			total++;
+			if (--untilRebuild == 0) {
+				interval = (int) Math.min((long) interval * 2, maxInterval);
+				untilRebuild = interval;
+				rebuild();
+			}
+		}
+
+		private void rebuild() {
+			if (total > HALVING_THRESHOLD) {
+				total = 0;
+				for (int symbol = 0; symbol < symbols; symbol++) {
+					counts[symbol] = (counts[symbol] + 1) >>> 1;
+					total += counts[symbol];
+				}
+			}
+			CanonicalCode code = new CanonicalCode(PackageMerge.lengths(Arrays.copyOf(counts, symbols), MAX_CODE_LENGTH));
+			codes = code.codes;
+			lengths = code.lengths;
+			table = code.decodeTable();
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+package huffman;
+
+/**
+ * Reads bits, most significant first, from an array of bytes through a 64-bit
+ * window, so that the next several bits can be peeked at and consumed as one
+ * integer. Reading past the end of the array yields 0 bits.
+ */
+class BitReader {
+
+	private final byte[] source;
+	private final int end;
+	private int position;
+
+	// Unconsumed bits, left-aligned, and how many of them are valid
+	private long window;
+	private int available;
+
+	/**
+	 * @param source The bytes to read
+	 * @param offset Index of the first byte to read
+	 * @param end    Index one past the last byte to read
+	 */
+	BitReader(byte[] source, int offset, int end) {
+		this.source = source;
+		this.position = offset;
+		this.end = end;
+		refill();
+	}
+
+	/**
+	 * Tops the window up to at least 57 valid bits (or as many as remain).
+	 */
+	void refill() {
+		while (available <= 56) {
+			long b = position < end ? source[position] & 0xFF : 0;
+			window |= b << (56 - available);
+			available += 8;
+			position++;
+		}
+	}
+
+	/**
+	 * @param n Number of bits to peek at, in [1, 32]; the window must have been
+	 *          refilled since n or more bits were last consumed
+	 * @return The next n bits, right-aligned, without consuming them
+	 */
+	int peek(int n) {
+		return (int) (window >>> (64 - n));
+	}
+
+	/**
+	 * Discards the next n bits, in [0, 57]
+	 */
+	void consume(int n) {
+		window <<= n;
+		available -= n;
+	}
+
+	/**
+	 * Reads the next n bits, in [1, 32], refilling as needed
+	 */
+	int read(int n) {
+		if (available < n) {
+			refill();
+		}
+		int bits = peek(n);
+		consume(n);
+		return bits;
+	}
+
+}
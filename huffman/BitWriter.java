@@ -0,0 +1,132 @@
+package huffman;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes variable-length bit codes, most significant bit first, into a growable
+ * array of bytes. Bits are collected in a 64-bit accumulator that is only flushed
+ * to the array a whole word at a time, so writing a code costs a shift and an OR
+ * in the common case.
+ */
+class BitWriter {
+
+	private byte[] buffer;
+	private int position;
+	private long accumulator;
+	private int bitCount;
+
+	/**
+	 * @param initialCapacity Number of bytes to allocate up front; the buffer grows
+	 *                        as needed
+	 */
+	BitWriter(int initialCapacity) {
+		buffer = new byte[Math.max(initialCapacity, 8)];
+	}
+
+	/**
+	 * Appends the lowest length bits of code, most significant first.
+	 *
+	 * @param code   The bits to write, right-aligned
+	 * @param length Number of bits to write, in [0, 32]
+	 */
+	void write(int code, int length) {
+		long bits = code & 0xFFFFFFFFL;
+		int free = 64 - bitCount;
+		if (length < free) {
+			accumulator = (accumulator << length) | bits;
+			bitCount += length;
+			return;
+		}
+		// Fill the accumulator, flush it, and keep the bits that didn't fit
+		int spill = length - free;
+		flushWord((accumulator << free) | (bits >>> spill));
+		accumulator = bits & ((1L << spill) - 1);
+		bitCount = spill;
+	}
+
+	/**
+	 * Appends a whole byte; need not be byte-aligned.
+	 */
+	void writeByte(int b) {
+		write(b & 0xFF, 8);
+	}
+
+	/**
+	 * Appends a varint (see Varint); need not be byte-aligned.
+	 */
+	void writeVarint(long value) {
+		while (value >= 0x80 || value < 0) {
+			writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		writeByte((int) value);
+	}
+
+	/**
+	 * @return Number of bits written so far
+	 */
+	long bitLength() {
+		return position * 8L + bitCount;
+	}
+
+	/**
+	 * Pads the final byte with 0s and returns everything written.
+	 *
+	 * @return Exactly-sized copy of the written bytes
+	 */
+	byte[] toByteArray() {
+		byte[] result = Arrays.copyOf(buffer, byteLength());
+		long tail = accumulator << (64 - bitCount);
+		for (int i = position; i < result.length; i++) {
+			result[i] = (byte) (tail >>> 56);
+			tail <<= 8;
+		}
+		return result;
+	}
+
+	/**
+	 * @return Number of bytes toByteArray or drainTo would produce
+	 */
+	int byteLength() {
+		return position + (bitCount + 7) / 8;
+	}
+
+	/**
+	 * Pads the final byte with 0s, writes everything written so far to the given
+	 * stream, and empties this writer for reuse (keeping its buffer).
+	 */
+	void drainTo(OutputStream out) throws IOException {
+		int length = byteLength();
+		if (length > buffer.length) {
+			buffer = Arrays.copyOf(buffer, length);
+		}
+		long tail = accumulator << (64 - bitCount);
+		for (int i = position; i < length; i++) {
+			buffer[i] = (byte) (tail >>> 56);
+			tail <<= 8;
+		}
+		out.write(buffer, 0, length);
+		reset();
+	}
+
+	/**
+	 * Discards everything written so far, keeping the buffer for reuse.
+	 */
+	void reset() {
+		position = 0;
+		accumulator = 0;
+		bitCount = 0;
+	}
+
+	private void flushWord(long word) {
+		if (position + 8 > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + 8));
+		}
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			buffer[position++] = (byte) (word >>> shift);
+		}
+	}
+
+}
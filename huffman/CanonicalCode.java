@@ -0,0 +1,232 @@
+package huffman;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Canonical Huffman code over an alphabet of int symbols, derived from code
+ * lengths alone: codes of the same length are consecutive integers in symbol
+ * order, and each length's codes follow on from the last code of the length
+ * before. Since the lengths determine the codes, a code is serialized as just
+ * its (symbol, length) pairs, and any process can rebuild the same encoder and
+ * decoding tables from that header.
+ */
+final class CanonicalCode {
+
+	static final int MAX_LENGTH = 32;
+
+	final byte[] lengths;
+	final int[] codes;
+
+	// Length of the shortest code, 0 if no symbol has a code
+	private final int shortest;
+
+	/**
+	 * @param lengths The code length in bits of each symbol, 0 for symbols without
+	 *                a code; must satisfy the Kraft inequality
+	 */
+	CanonicalCode(byte[] lengths) {
+		this.lengths = lengths;
+		this.codes = new int[lengths.length];
+
+		int[] perLength = new int[MAX_LENGTH + 1];
+		for (byte length : lengths) {
+			if (length < 0 || length > MAX_LENGTH) {
+				throw new IllegalArgumentException("Code length out of range: " + length);
+			}
+			perLength[length]++;
+		}
+		perLength[0] = 0;
+		int shortest = 0;
+		for (int length = MAX_LENGTH; length > 0; length--) {
+			if (perLength[length] > 0) {
+				shortest = length;
+			}
+		}
+		this.shortest = shortest;
+
+		// First code of each length, checking along the way that there are few
+		// enough codes of each length to stay prefix-free
+		long[] next = new long[MAX_LENGTH + 1];
+		long code = 0;
+		for (int length = 1; length <= MAX_LENGTH; length++) {
+			code = (code + perLength[length - 1]) << 1;
+			next[length] = code;
+			if (code + perLength[length] > (1L << length)) {
+				throw new IllegalArgumentException("Code lengths do not form a prefix code");
+			}
+		}
+		for (int symbol = 0; symbol < lengths.length; symbol++) {
+			if (lengths[symbol] != 0) {
+				codes[symbol] = (int) next[lengths[symbol]]++;
+			}
+		}
+	}
+
+	/**
+	 * Starts a compressed message: a writer sized for the message's bits, holding
+	 * the varint symbol count that readMessageLength reads back.
+	 * 
+	 * @param length   Number of symbols in the message
+	 * @param codeBits Total length of their codes
+	 */
+	static BitWriter messageWriter(int length, long codeBits) {
+		BitWriter writer = new BitWriter((int) Math.min((codeBits + 40 + 7) / 8, Integer.MAX_VALUE - 8));
+		writer.writeVarint(length);
+		return writer;
+	}
+
+	/**
+	 * Reads the varint symbol count that starts a compressed message and checks
+	 * it against the bytes that follow, before anything is allocated for the
+	 * output: every symbol costs at least the shortest code's bits (one bit for
+	 * the lone code of a single-symbol corpus), and a code with no symbols can
+	 * only describe an empty message. A corrupt or hostile count is rejected
+	 * rather than sizing a buffer the input could never fill.
+	 * 
+	 * @param in Buffer positioned at the varint, left positioned after it, with
+	 *           its limit at the end of the coded bits
+	 * @return The number of symbols in the message
+	 */
+	int readMessageLength(ByteBuffer in) {
+		long length = Varint.read(in);
+		if (shortest == 0) {
+			if (length != 0) {
+				throw new IllegalArgumentException("Message of " + length + " symbols under a code with no symbols");
+			}
+			return 0;
+		}
+		if (length > 8L * in.remaining() / shortest) {
+			throw new IllegalArgumentException(
+					"Message length " + length + " exceeds what " + in.remaining() + " bytes can hold");
+		}
+		if (length > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Message too long to decompress into an array: " + length);
+		}
+		return (int) length;
+	}
+
+	DecodeTable decodeTable() {
+		return new DecodeTable(codes, lengths);
+	}
+
+	/**
+	 * Writes the header for this code: the number of symbols with codes, then
+	 * for each of them in increasing order, the gap since the previous symbol
+	 * (as a varint) and its code length (as a byte).
+	 */
+	void writeHeader(OutputStream out) throws IOException {
+		int count = 0;
+		for (byte length : lengths) {
+			if (length != 0) {
+				count++;
+			}
+		}
+		Varint.write(out, count);
+		int previous = -1;
+		for (int symbol = 0; symbol < lengths.length; symbol++) {
+			if (lengths[symbol] != 0) {
+				Varint.write(out, symbol - previous - 1);
+				out.write(lengths[symbol]);
+				previous = symbol;
+			}
+		}
+	}
+
+	/**
+	 * @return {@code byte[]} holding what writeHeader writes
+	 */
+	byte[] header() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			writeHeader(out);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return {@code byte[]} of this code's header followed by the given body
+	 */
+	byte[] withHeader(byte[] body) {
+		byte[] header = header();
+		byte[] blob = Arrays.copyOf(header, header.length + body.length);
+		System.arraycopy(body, 0, blob, header.length, body.length);
+		return blob;
+	}
+
+	/**
+	 * Reads a header that fills the given array, as returned by header().
+	 * 
+	 * @throws IllegalArgumentException If the header is corrupt
+	 */
+	static CanonicalCode fromHeader(byte[] header, int alphabetSize) {
+		try {
+			return readHeader(new ByteArrayInputStream(header), alphabetSize);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Decodes the body that follows the header in a blob from withHeader.
+	 */
+	interface BodyDecoder<T> {
+		T decode(CanonicalCode code, int offset);
+	}
+
+	/**
+	 * Reads the header at the start of the given blob, and hands the code it
+	 * describes and the offset of the body after it to the given decoder.
+	 * 
+	 * @throws IllegalArgumentException If the header is corrupt
+	 */
+	static <T> T decodeWithHeader(byte[] blob, int alphabetSize, BodyDecoder<T> decoder) {
+		ByteArrayInputStream in = new ByteArrayInputStream(blob);
+		CanonicalCode code;
+		try {
+			code = readHeader(in, alphabetSize);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+		return decoder.decode(code, blob.length - in.available());
+	}
+
+	/**
+	 * Reads a header written by writeHeader.
+	 * 
+	 * @param in           Stream positioned at the start of the header
+	 * @param alphabetSize Number of symbols in the alphabet the code is over
+	 * @return The code described by the header
+	 */
+	static CanonicalCode readHeader(InputStream in, int alphabetSize) throws IOException {
+		byte[] lengths = new byte[alphabetSize];
+		int count = Varint.readInt(in), symbol = -1;
+		for (int i = 0; i < count; i++) {
+			// Checked against the symbols left before it is added, so that a huge
+			// gap can't wrap symbol around to a valid-looking index
+			int gap = Varint.readInt(in);
+			if (gap > alphabetSize - 2 - symbol) {
+				throw new IOException("Corrupt Huffman code header");
+			}
+			symbol += gap + 1;
+			int length = in.read();
+			if (length <= 0 || length > MAX_LENGTH) {
+				throw new IOException("Corrupt Huffman code header");
+			}
+			lengths[symbol] = (byte) length;
+		}
+		try {
+			return new CanonicalCode(lengths);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Corrupt Huffman code header", e);
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package huffman;
+
+/**
+ * Table-driven Huffman decoder. A primary table indexed by the next
+ * PRIMARY_BITS bits of input decodes any code of up to that length in a single
+ * lookup; longer codes share their first PRIMARY_BITS bits with a handful of
+ * others, and that prefix's primary entry links to a secondary table indexed by
+ * the bits that follow.
+ */
+class DecodeTable {
+
+	static final int PRIMARY_BITS = 11;
+
+	// Entries are (symbol << 6 | code length) for a decoded symbol, ~(offset << 5 |
+	// secondary bits) for a link to a secondary table, and 0 for an invalid code
+	private final int[] primary;
+	private final int[] secondary;
+
+	/**
+	 * Builds the tables for a prefix-free code.
+	 * 
+	 * @param codes   The code of each symbol, right-aligned
+	 * @param lengths The length in bits of each symbol's code, in [0, 32], with 0
+	 *                for symbols that have no code
+	 */
+	DecodeTable(int[] codes, byte[] lengths) {
+		primary = new int[1 << PRIMARY_BITS];
+
+		// Longest code under each primary prefix decides its secondary table's size
+		int[] longest = new int[1 << PRIMARY_BITS];
+		for (int symbol = 0; symbol < lengths.length; symbol++) {
+			int length = lengths[symbol];
+			if (length > PRIMARY_BITS) {
+				int prefix = (int) ((codes[symbol] & 0xFFFFFFFFL) >>> (length - PRIMARY_BITS));
+				longest[prefix] = Math.max(longest[prefix], length - PRIMARY_BITS);
+			}
+		}
+		int size = 0;
+		for (int prefix = 0; prefix < longest.length; prefix++) {
+			if (longest[prefix] > 0) {
+				primary[prefix] = ~((size << 5) | longest[prefix]);
+				size += 1 << longest[prefix];
+			}
+		}
+		secondary = new int[size];
+
+		for (int symbol = 0; symbol < lengths.length; symbol++) {
+			int length = lengths[symbol];
+			if (length == 0) {
+				continue;
+			}
+			int entry = (symbol << 6) | length;
+			long code = codes[symbol] & 0xFFFFFFFFL;
+			if (length <= PRIMARY_BITS) {
+				fill(primary, 0, (int) code << (PRIMARY_BITS - length), PRIMARY_BITS - length, entry);
+			} else {
+				int link = ~primary[(int) (code >>> (length - PRIMARY_BITS))];
+				int extra = length - PRIMARY_BITS, tableBits = link & 31;
+				int suffix = (int) (code & ((1L << extra) - 1));
+				fill(secondary, link >>> 5, suffix << (tableBits - extra), tableBits - extra, entry);
+			}
+		}
+	}
+
+	/**
+	 * Decodes the next symbol, consuming its code from the reader.
+	 * 
+	 * @param in Reader positioned at the start of a code
+	 * @return The decoded symbol
+	 */
+	int next(BitReader in) {
+		in.refill();
+		int entry = primary[in.peek(PRIMARY_BITS)];
+		if (entry < 0) {
+			int link = ~entry, tableBits = link & 31;
+			in.consume(PRIMARY_BITS);
+			entry = secondary[(link >>> 5) + in.peek(tableBits)];
+			if (entry == 0) {
+				throw new IllegalArgumentException("Invalid Huffman code in compressed message");
+			}
+			in.consume((entry & 63) - PRIMARY_BITS);
+			return entry >>> 6;
+		}
+		if (entry == 0) {
+			throw new IllegalArgumentException("Invalid Huffman code in compressed message");
+		}
+		in.consume(entry & 63);
+		return entry >>> 6;
+	}
+
+	private static void fill(int[] table, int base, int start, int freeBits, int entry) {
+		int from = base + start, to = from + (1 << freeBits);
+		for (int i = from; i < to; i++) {
+			table[i] = entry;
+		}
+	}
+
+}
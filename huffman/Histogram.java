@@ -0,0 +1,110 @@
+package huffman;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Symbol frequency counting for Huffman corpus analysis, into flat int arrays
+ * indexed by symbol: {@code int[65536]} for chars, {@code int[256]} for bytes.
+ * Large corpora can be counted in parallel, one histogram per worker, merged at
+ * the end. Counts are ints, so no single symbol may occur 2^31 times or more.
+ */
+final class Histogram {
+
+	static final int CHARS = Character.MAX_VALUE + 1, BYTES = 256;
+
+	// Below this many symbols per worker, splitting costs more than it saves
+	private static final int MIN_PARALLEL_CHUNK = 1 << 20;
+
+	private Histogram() {
+	}
+
+	/**
+	 * @return Number of occurrences of each char in the corpus
+	 */
+	static int[] of(String corpus) {
+		int[] counts = new int[CHARS];
+		count(corpus, 0, corpus.length(), counts);
+		return counts;
+	}
+
+	/**
+	 * @return Number of occurrences of each char in the corpus, counted by the
+	 *         workers of the given pool
+	 */
+	static int[] of(String corpus, ForkJoinPool pool) {
+		List<ForkJoinTask<int[]>> tasks = new ArrayList<>();
+		int chunk = chunkSize(corpus.length(), pool);
+		// Chunk ends in longs, since from + chunk can pass Integer.MAX_VALUE
+		for (int from = 0, to; from < corpus.length(); from = to) {
+			to = (int) Math.min(corpus.length(), (long) from + chunk);
+			int start = from, end = to;
+			tasks.add(pool.submit(() -> {
+				int[] counts = new int[CHARS];
+				count(corpus, start, end, counts);
+				return counts;
+			}));
+		}
+		return merge(tasks, CHARS);
+	}
+
+	/**
+	 * @return Number of occurrences of each byte value (as an unsigned index) in
+	 *         the data
+	 */
+	static int[] of(byte[] data) {
+		int[] counts = new int[BYTES];
+		count(data, 0, data.length, counts);
+		return counts;
+	}
+
+	/**
+	 * @return Number of occurrences of each byte value in the data, counted by the
+	 *         workers of the given pool
+	 */
+	static int[] of(byte[] data, ForkJoinPool pool) {
+		List<ForkJoinTask<int[]>> tasks = new ArrayList<>();
+		int chunk = chunkSize(data.length, pool);
+		for (int from = 0, to; from < data.length; from = to) {
+			to = (int) Math.min(data.length, (long) from + chunk);
+			int start = from, end = to;
+			tasks.add(pool.submit(() -> {
+				int[] counts = new int[BYTES];
+				count(data, start, end, counts);
+				return counts;
+			}));
+		}
+		return merge(tasks, BYTES);
+	}
+
+	static void count(String corpus, int from, int to, int[] counts) {
+		for (int i = from; i < to; i++) {
+			counts[corpus.charAt(i)]++;
+		}
+	}
+
+	static void count(byte[] data, int from, int to, int[] counts) {
+		for (int i = from; i < to; i++) {
+			counts[data[i] & 0xFF]++;
+		}
+	}
+
+	private static int chunkSize(int length, ForkJoinPool pool) {
+		int perWorker = (int) (((long) length + pool.getParallelism() - 1) / pool.getParallelism());
+		return Math.max(perWorker, MIN_PARALLEL_CHUNK);
+	}
+
+	private static int[] merge(List<ForkJoinTask<int[]>> tasks, int alphabetSize) {
+		int[] total = new int[alphabetSize];
+		for (ForkJoinTask<int[]> task : tasks) {
+			int[] counts = task.join();
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				total[symbol] += counts[symbol];
+			}
+		}
+		return total;
+	}
+
+}
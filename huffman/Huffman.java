@@ -1,12 +1,19 @@
 package huffman;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Huffman instances provide reusable Huffman Encoding Maps for compressing and
- * decompressing text corpi with comparable distributions of characters.
+ * decompressing text corpi with comparable distributions of characters. Codes
+ * are canonical, so an Encoding Map is fully described by its code lengths and
+ * can be shipped to other processes as a compact header.
  */
 public class Huffman {
 
@@ -14,8 +21,14 @@ public class Huffman {
 	// Construction
 	// -----------------------------------------------
 
-	private HuffNode trieRoot;
-	private Map<Character, String> encodingMap = new HashMap<Character, String>();
+	private static final int ALPHABET_SIZE = Character.MAX_VALUE + 1;
+
+	// Encoding Map: the canonical Huffman code of each char, right-aligned, and
+	// its length in bits (0 for chars that never appeared in the corpus)
+	private final CanonicalCode code;
+	private final int[] codes;
+	private final byte[] codeLengths;
+	private final DecodeTable decodeTable;
 
 	/**
 	 * Creates the Huffman Trie and Encoding Map using the character distributions
@@ -28,22 +41,45 @@ public class Huffman {
 	 *               differ.
 	 */
 	Huffman(String corpus) {
-		HashMap<Character, Integer> distributions = new HashMap<Character, Integer>();
-		// Created Hash map, iterated through corpus characters to find their
-		// frequencies
-		for (int i = 0; i < corpus.length(); i++) {
-			if (distributions.containsKey(corpus.charAt(i))) {
-				distributions.put(corpus.charAt(i), distributions.get(corpus.charAt(i)) + 1);
-			} else {
-				distributions.put(corpus.charAt(i), 1);
-			}
+		this(corpus, CanonicalCode.MAX_LENGTH);
+	}
+
+	/**
+	 * Creates the Huffman Trie and Encoding Map using the character distributions
+	 * in the given text corpus, with no code longer than the given limit. Short
+	 * limits keep decoding to a single table lookup per character at a small cost
+	 * in compression ratio: when the Huffman Trie is deeper than allowed, the code
+	 * lengths are instead found by package-merge, which gives the smallest output
+	 * possible within the limit.
+	 * 
+	 * @param corpus        A String representing a message / document corpus with
+	 *                      distributions over characters, as for Huffman(corpus)
+	 * @param maxCodeLength The longest code length allowed, in [1, 32]
+	 */
+	Huffman(String corpus, int maxCodeLength) {
+		this(Histogram.of(corpus), maxCodeLength);
+	}
+
+	/**
+	 * Creates the Huffman Trie and Encoding Map from an already-counted character
+	 * distribution (e.g., one counted in parallel by Histogram), with no code
+	 * longer than the given limit.
+	 * 
+	 * @param distributions The number of times each char appears in the corpus,
+	 *                      indexed by char
+	 * @param maxCodeLength The longest code length allowed, in [1, 32]
+	 */
+	Huffman(int[] distributions, int maxCodeLength) {
+		if (distributions.length != ALPHABET_SIZE) {
+			throw new IllegalArgumentException("Expected a count for each of the " + ALPHABET_SIZE + " chars");
 		}
 		// building the HuffmanTrie by creating priority queue and adding huffnode to
 		// pQueue
 		PriorityQueue<HuffNode> pQueue = new PriorityQueue<HuffNode>();
-		for (Map.Entry<Character, Integer> entry : distributions.entrySet()) {
-			HuffNode nodey = new HuffNode(entry.getKey(), entry.getValue());
-			pQueue.add(nodey);
+		for (int c = 0; c < ALPHABET_SIZE; c++) {
+			if (distributions[c] > 0) {
+				pQueue.add(new HuffNode((char) c, distributions[c]));
+			}
 		}
 		// Construction of the HuffmanTrie
 		while (pQueue.size() > 1) {
@@ -54,23 +90,102 @@ public class Huffman {
 			parentNode.right = nextSmallest;
 			pQueue.add(parentNode);
 		}
-		trieRoot = pQueue.poll();
-//		System.out.println(trieRoot.right.character);
-		encodingMap(trieRoot, "");
+		// Only the depth of each leaf matters: the codes themselves are canonical
+		HuffNode trieRoot = pQueue.poll();
+		byte[] lengths = new byte[ALPHABET_SIZE];
+		if (trieRoot != null) {
+			// A lone character still needs a 1-bit code to be counted by
+			int depth = codeLengths(trieRoot, trieRoot.isLeaf() ? 1 : 0, lengths);
+			if (depth > maxCodeLength) {
+				lengths = PackageMerge.lengths(distributions, maxCodeLength);
+			}
+		}
+		this.code = new CanonicalCode(lengths);
+		this.codes = code.codes;
+		this.codeLengths = code.lengths;
+		this.decodeTable = code.decodeTable();
+	}
+
+	/**
+	 * Creates the Encoding Map described by a header from another Huffman
+	 * instance, without needing its corpus or rebuilding its trie.
+	 */
+	private Huffman(CanonicalCode code) {
+		this.code = code;
+		this.codes = code.codes;
+		this.codeLengths = code.lengths;
+		this.decodeTable = code.decodeTable();
+	}
+
+	static Huffman fromCode(CanonicalCode code) {
+		return new Huffman(code);
 	}
 
-	public void encodingMap(HuffNode n, String path) {
+	/**
+	 * Records the code length (depth) of every leaf below the given node, as
+	 * far as fits in a byte.
+	 * 
+	 * @param n       The current node in the Huffman Trie
+	 * @param depth   The number of edges from the root to n
+	 * @param lengths Code lengths to fill in, indexed by character
+	 * @return The depth of the deepest leaf below n
+	 */
+	private static int codeLengths(HuffNode n, int depth, byte[] lengths) {
 		if (n.isLeaf()) {
-//			System.out.println(path);
-			encodingMap.put(n.character, path);
-			return;
-		}
-		if (!n.left.equals(null)) {
-			encodingMap(n.left, path + "0");
-		}
-		if (!n.right.equals(null)) {
-			encodingMap(n.right, path + "1");
+			lengths[n.character] = (byte) Math.min(depth, Byte.MAX_VALUE);
+			return depth;
 		}
+		return Math.max(codeLengths(n.left, depth + 1, lengths), codeLengths(n.right, depth + 1, lengths));
+	}
+
+	// -----------------------------------------------
+	// Headers
+	// -----------------------------------------------
+
+	/**
+	 * Serializes this instance's Encoding Map as a header of (character, code
+	 * length) pairs, from which fromHeader can rebuild it in any process.
+	 * 
+	 * @return {@code byte[]} header: a varint count of characters, then for each
+	 *         character in increasing order, a varint gap from the previous
+	 *         character and a byte code length.
+	 */
+	public byte[] header() {
+		return code.header();
+	}
+
+	/**
+	 * Rebuilds the Huffman instance that produced the given header.
+	 * 
+	 * @param header {@code byte[]} as returned by header()
+	 * @return Huffman instance with the same Encoding Map (and so able to
+	 *         decompress anything the original compressed, and vice versa)
+	 */
+	public static Huffman fromHeader(byte[] header) {
+		return new Huffman(CanonicalCode.fromHeader(header, ALPHABET_SIZE));
+	}
+
+	/**
+	 * Compresses the given message into a self-describing blob that can be
+	 * decompressed by decompressWithHeader without access to this instance.
+	 * 
+	 * @param message String representing the corpus to compress.
+	 * @return {@code byte[]} of this instance's header followed by the output of
+	 *         compress(message)
+	 */
+	public byte[] compressWithHeader(String message) {
+		return code.withHeader(compress(message));
+	}
+
+	/**
+	 * Decompresses a blob produced by compressWithHeader on any Huffman instance.
+	 * 
+	 * @param blob {@code byte[]} header followed by the compressed message
+	 * @return Decompressed String representation of the message
+	 */
+	public static String decompressWithHeader(byte[] blob) {
+		return CanonicalCode.decodeWithHeader(blob, ALPHABET_SIZE,
+				(code, offset) -> new Huffman(code).decompress(blob, offset));
 	}
 
 	// -----------------------------------------------
@@ -79,33 +194,61 @@ public class Huffman {
 
 	/**
 	 * Compresses the given String message / text corpus into its Huffman coded
-	 * bitstring, as represented by an array of bytes. Uses the encodingMap field
-	 * generated during construction for this purpose.
+	 * bitstring, as represented by an array of bytes. Uses the Encoding Map
+	 * (codes and codeLengths) generated during construction for this purpose.
 	 * 
 	 * @param message String representing the corpus to compress.
 	 * @return {@code byte[]} representing the compressed corpus with the Huffman
-	 *         coded bytecode. Formatted as 3 components: (1) the first byte
-	 *         contains the number of characters in the message, (2) the bitstring
-	 *         containing the message itself, (3) possible 0-padding on the final
-	 *         byte.
+	 *         coded bytecode. Formatted as 3 components: (1) a varint (7 bits per
+	 *         byte, high bit set on all but the last) holding the number of
+	 *         characters in the message, (2) the bitstring containing the message
+	 *         itself, (3) possible 0-padding on the final byte.
 	 */
 	public byte[] compress(String message) {
-		//uses the encodingMap
 		int mLength = message.length();
-		char[] mess = message.toCharArray();
-		String bitString = "";
+		long bits = 0;
 		for (int i = 0; i < mLength; i++) {
-			bitString += encodingMap.get(mess[i]);
+			bits += codeLengths[message.charAt(i)];
+		}
+
+		BitWriter writer = CanonicalCode.messageWriter(mLength, bits);
+		encode(message, 0, mLength, writer);
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Writes the codes of the characters in [from, to) of the given message.
+	 */
+	void encode(String message, int from, int to, BitWriter writer) {
+		for (int i = from; i < to; i++) {
+			char c = message.charAt(i);
+			int length = codeLengths[c];
+			if (length == 0) {
+				throw new IllegalArgumentException("Character not in the Encoding Map: " + c);
+			}
+			writer.write(codes[c], length);
 		}
-		if (bitString.length() % 8 != 0) {
-			
-			
+	}
+
+	/**
+	 * Writes the codes of the characters in [from, to) of the given buffer.
+	 */
+	void encode(char[] message, int from, int to, BitWriter writer) {
+		for (int i = from; i < to; i++) {
+			char c = message[i];
+			int length = codeLengths[c];
+			if (length == 0) {
+				throw new IllegalArgumentException("Character not in the Encoding Map: " + c);
+			}
+			writer.write(codes[c], length);
 		}
-		System.out.println("bitString:" + bitString);
-		byte[] bite = {2};
-		return bite;
-		
-		
+	}
+
+	/**
+	 * @return The canonical code behind this instance's Encoding Map
+	 */
+	CanonicalCode code() {
+		return code;
 	}
 
 	// -----------------------------------------------
@@ -114,42 +257,184 @@ public class Huffman {
 
 	/**
 	 * Decompresses the given compressed array of bytes into their original, String
-	 * representation. Uses the trieRoot field (the Huffman Trie) that generated the
-	 * compressed message during decoding.
+	 * representation. Uses the decoding tables built from the code lengths of the
+	 * Encoding Map that generated the compressed message, which decode one
+	 * character per lookup.
 	 * 
 	 * @param compressedMsg {@code byte[]} representing the compressed corpus with
 	 *                      the Huffman coded bytecode. Formatted as 3 components:
-	 *                      (1) the first byte contains the number of characters in
-	 *                      the message, (2) the bitstring containing the message
+	 *                      (1) a varint holding the number of characters in the
+	 *                      message, (2) the bitstring containing the message
 	 *                      itself, (3) possible 0-padding on the final byte.
 	 * @return Decompressed String representation of the compressed bytecode
 	 *         message.
 	 */
 	public String decompress(byte[] compressedMsg) {
-		int outputLength = compressedMsg[0];
-		String bitString = "";
-		for (int i = 1; i < compressedMsg.length; i++) {
-			bitString += String.format("%8s", (Integer.toBinaryString(compressedMsg[i] & 0xFF))).replace(' ', '0');
-		}
-		System.out.println(bitString);
-		String outputString = "";
-
-		// need a pointer that shows root
-		int chars = 0;
-		char[] bits = bitString.toCharArray();
-		System.out.println(outputLength);
-
-		HuffNode pointer = trieRoot;
-		for (int i = 0; i < bitString.length() && chars < outputLength; i++) {
-			if (pointer.isLeaf()) {
-				outputString += Character.toString(pointer.character);
-				chars++;
-				pointer = trieRoot;
+		return decompress(compressedMsg, 0);
+	}
+
+	private String decompress(byte[] compressedMsg, int offset) {
+		ByteBuffer header = ByteBuffer.wrap(compressedMsg, offset, compressedMsg.length - offset);
+		char[] output = new char[code.readMessageLength(header)];
+		decode(new BitReader(compressedMsg, header.position(), compressedMsg.length), output, 0, output.length);
+		return new String(output);
+	}
+
+	/**
+	 * Decodes characters into [from, to) of the given buffer.
+	 */
+	void decode(BitReader in, char[] output, int from, int to) {
+		DecodeTable table = decodeTable;
+		for (int i = from; i < to; i++) {
+			output[i] = (char) table.next(in);
+		}
+	}
+
+	// -----------------------------------------------
+	// Parallel Block Compression
+	// -----------------------------------------------
+
+	public static final int DEFAULT_BLOCK_CHARS = 1 << 20;
+
+	/**
+	 * Compresses the given message as independent blocks of blockChars characters,
+	 * encoded concurrently on the given pool. Since each block starts on a fresh
+	 * byte, the blocks can also be decompressed concurrently, or one at a time.
+	 * 
+	 * @param message    String representing the corpus to compress.
+	 * @param blockChars Number of characters per block (the last may be shorter)
+	 * @param pool       ForkJoinPool to encode the blocks on
+	 * @return {@code byte[]} formatted as: varints for the message length, the
+	 *         block size in characters, and the number of blocks; a block index of
+	 *         one varint per block holding its length in bits; then the blocks
+	 *         themselves, each 0-padded to a byte, in order.
+	 */
+	public byte[] compressParallel(String message, int blockChars, ForkJoinPool pool) {
+		if (blockChars < 1) {
+			throw new IllegalArgumentException("Block size must be positive: " + blockChars);
+		}
+		// In longs, since length + blockChars and b * blockChars can pass
+		// Integer.MAX_VALUE for block sizes near it
+		int length = message.length();
+		int blocks = (int) (((long) length + blockChars - 1) / blockChars);
+		List<ForkJoinTask<BitWriter>> tasks = new ArrayList<>(blocks);
+		for (int b = 0; b < blocks; b++) {
+			long start = (long) b * blockChars;
+			int from = (int) start, to = (int) Math.min(length, start + blockChars);
+			tasks.add(pool.submit(() -> {
+				BitWriter writer = new BitWriter((to - from) / 2);
+				encode(message, from, to, writer);
+				return writer;
+			}));
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			Varint.write(out, message.length());
+			Varint.write(out, blockChars);
+			Varint.write(out, blocks);
+			List<BitWriter> encoded = new ArrayList<>(blocks);
+			for (ForkJoinTask<BitWriter> task : tasks) {
+				BitWriter writer = task.join();
+				Varint.write(out, writer.bitLength());
+				encoded.add(writer);
+			}
+			for (BitWriter writer : encoded) {
+				writer.drainTo(out);
+			}
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decompresses the output of compressParallel, decoding its blocks
+	 * concurrently on the given pool.
+	 * 
+	 * @param compressedMsg {@code byte[]} as returned by compressParallel
+	 * @param pool          ForkJoinPool to decode the blocks on
+	 * @return Decompressed String representation of the message
+	 */
+	public String decompressParallel(byte[] compressedMsg, ForkJoinPool pool) {
+		BlockIndex index = new BlockIndex(compressedMsg);
+		char[] output = new char[index.length];
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(index.blocks);
+		for (int b = 0; b < index.blocks; b++) {
+			int block = b;
+			tasks.add(pool.submit(() -> decode(index.reader(compressedMsg, block), output,
+					index.firstChar(block), index.firstChar(block + 1))));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		return new String(output);
+	}
+
+	/**
+	 * Decompresses a single block of the output of compressParallel, without
+	 * decoding any other block.
+	 * 
+	 * @param compressedMsg {@code byte[]} as returned by compressParallel
+	 * @param block         Index of the block to decompress
+	 * @return The characters of the message in that block
+	 */
+	public String decompressBlock(byte[] compressedMsg, int block) {
+		BlockIndex index = new BlockIndex(compressedMsg);
+		if (block < 0 || block >= index.blocks) {
+			throw new IndexOutOfBoundsException("Block " + block + " of " + index.blocks);
+		}
+		char[] output = new char[index.firstChar(block + 1) - index.firstChar(block)];
+		decode(index.reader(compressedMsg, block), output, 0, output.length);
+		return new String(output);
+	}
+
+	/**
+	 * Parsed header and block index of the output of compressParallel
+	 */
+	private static class BlockIndex {
+
+		final int length, blockChars, blocks;
+		final int[] offsets;
+
+		BlockIndex(byte[] compressedMsg) {
+			ByteBuffer in = ByteBuffer.wrap(compressedMsg);
+			length = toInt(Varint.read(in));
+			blockChars = toInt(Varint.read(in));
+			blocks = toInt(Varint.read(in));
+			if (blockChars < 1 || blocks != (int) (((long) length + blockChars - 1) / blockChars)) {
+				throw new IllegalArgumentException("Corrupt block header");
+			}
+			// Byte offset of each block, plus one past the end of the last
+			offsets = new int[blocks + 1];
+			long[] bits = new long[blocks];
+			for (int b = 0; b < blocks; b++) {
+				bits[b] = Varint.read(in);
+			}
+			offsets[0] = in.position();
+			for (int b = 0; b < blocks; b++) {
+				offsets[b + 1] = toInt(offsets[b] + bits[b] / 8 + (bits[b] % 8 == 0 ? 0 : 1));
+			}
+			if (offsets[blocks] > compressedMsg.length) {
+				throw new IllegalArgumentException("Truncated block data");
+			}
+		}
+
+		int firstChar(int block) {
+			return (int) Math.min(length, (long) block * blockChars);
+		}
+
+		BitReader reader(byte[] compressedMsg, int block) {
+			return new BitReader(compressedMsg, offsets[block], offsets[block + 1]);
+		}
+
+		private static int toInt(long value) {
+			if (value < 0 || value > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Block header value out of range: " + value);
 			}
-			pointer = (bits[i] == '0') ? pointer.left : pointer.right;
+			return (int) value;
 		}
 
-		return outputString;
 	}
 
 	// -----------------------------------------------
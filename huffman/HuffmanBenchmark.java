@@ -0,0 +1,191 @@
+package huffman;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Rough throughput / compression ratio benchmarks for the Huffman coders, run
+ * as a main program. Timings are the best of several repetitions after warm-up;
+ * treat them as relative comparisons rather than absolute numbers.
+ *
+ * Usage: HuffmanBenchmark [message length in chars]
+ */
+public class HuffmanBenchmark {
+
+	private static final int REPETITIONS = 5;
+
+	public static void main(String[] args) {
+		int length = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+		char[] message = zipf(length, 2048, 1.2, 42);
+
+		lengthLimits(message);
+		parallelBlocks(message);
+		adaptiveVsStatic(message);
+		bytesVsChars(message);
+	}
+
+	// -----------------------------------------------
+	// Benchmarks
+	// -----------------------------------------------
+
+	/**
+	 * Compression ratio vs. encode / decode speed of length-limited codes built
+	 * by package-merge, against the unlimited (optimal) code.
+	 */
+	static void lengthLimits(char[] message) {
+		System.out.println("== Length-limited codes (" + message.length + " chars, Zipf over 2048 symbols) ==");
+		System.out.println("limit  longest  bits/char  encode Mchar/s  decode Mchar/s");
+		int[] frequencies = new int[Character.MAX_VALUE + 1];
+		for (char c : message) {
+			frequencies[c]++;
+		}
+		for (int limit : new int[] { 32, 15, 13, 12, 11 }) {
+			CanonicalCode code = new CanonicalCode(PackageMerge.lengths(frequencies, limit));
+			DecodeTable table = code.decodeTable();
+			int longest = 0;
+			for (byte l : code.lengths) {
+				longest = Math.max(longest, l);
+			}
+
+			byte[][] encoded = new byte[1][];
+			long encodeNanos = best(() -> encoded[0] = encode(message, code));
+			long bits = 0;
+			for (char c : message) {
+				bits += code.lengths[c];
+			}
+			char[] decoded = new char[message.length];
+			long decodeNanos = best(() -> decode(encoded[0], table, decoded));
+
+			System.out.printf("%5s  %7d  %9.4f  %14.1f  %14.1f%n", limit == 32 ? "none" : limit, longest,
+					(double) bits / message.length, message.length / (encodeNanos / 1e3),
+					message.length / (decodeNanos / 1e3));
+		}
+	}
+
+	/**
+	 * Scaling of block-parallel compression and decompression from 1 worker up to
+	 * the number of available processors.
+	 */
+	static void parallelBlocks(char[] message) {
+		String text = new String(message);
+		Huffman huffman = new Huffman(text);
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("== Parallel blocks (" + message.length + " chars, 1M-char blocks, " + cores + " cores) ==");
+		System.out.println("workers  compress Mchar/s  decompress Mchar/s");
+		for (int workers = 1; workers <= Math.max(cores, 4); workers *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(workers);
+			byte[][] compressed = new byte[1][];
+			long compressNanos = best(() -> compressed[0] = huffman.compressParallel(text, Huffman.DEFAULT_BLOCK_CHARS, pool));
+			long decompressNanos = best(() -> huffman.decompressParallel(compressed[0], pool));
+			pool.shutdown();
+			System.out.printf("%7d  %16.1f  %18.1f%n", workers, message.length / (compressNanos / 1e3),
+					message.length / (decompressNanos / 1e3));
+		}
+	}
+
+	/**
+	 * Single-pass adaptive coding against the two-pass static model (counting the
+	 * corpus, building the code, then compressing with a header).
+	 */
+	static void adaptiveVsStatic(char[] message) {
+		String text = new String(message);
+		System.out.println("== Adaptive vs. static (" + message.length + " chars) ==");
+		System.out.println("model                      bytes  bits/char  compress Mchar/s  decompress Mchar/s");
+
+		byte[][] compressed = new byte[1][];
+		long compressNanos = best(() -> compressed[0] = new Huffman(text).compressWithHeader(text));
+		long decompressNanos = best(() -> Huffman.decompressWithHeader(compressed[0]));
+		report("static (two-pass)", compressed[0].length, message.length, compressNanos, decompressNanos);
+
+		for (int interval : new int[] { 1 << 12, 1 << 16, 1 << 20 }) {
+			compressNanos = best(() -> compressed[0] = AdaptiveHuffman.compress(text, interval));
+			decompressNanos = best(() -> AdaptiveHuffman.decompress(compressed[0]));
+			report("adaptive, every " + (interval >> 10) + "K", compressed[0].length, message.length, compressNanos,
+					decompressNanos);
+		}
+	}
+
+	/**
+	 * Byte-symbol coding of the message's UTF-8 encoding against char-symbol
+	 * coding of the message itself. Speeds are per input unit (byte or char).
+	 */
+	static void bytesVsChars(char[] message) {
+		String text = new String(message);
+		byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+		System.out.println("== Bytes vs. chars (" + message.length + " chars, " + utf8.length + " UTF-8 bytes) ==");
+		System.out.println("symbols                    bytes  bits/unit  compress Munit/s  decompress Munit/s");
+
+		Huffman chars = new Huffman(text);
+		byte[][] compressed = new byte[1][];
+		long compressNanos = best(() -> compressed[0] = chars.compress(text));
+		long decompressNanos = best(() -> chars.decompress(compressed[0]));
+		report("chars", compressed[0].length, message.length, compressNanos, decompressNanos);
+
+		ByteHuffman bytes = new ByteHuffman(utf8);
+		compressNanos = best(() -> compressed[0] = bytes.compress(utf8));
+		decompressNanos = best(() -> bytes.decompress(compressed[0]));
+		report("UTF-8 bytes", compressed[0].length, utf8.length, compressNanos, decompressNanos);
+	}
+
+	// -----------------------------------------------
+	// Helpers
+	// -----------------------------------------------
+
+	private static void report(String model, int bytes, int chars, long compressNanos, long decompressNanos) {
+		System.out.printf("%-22s  %8d  %9.4f  %16.1f  %18.1f%n", model, bytes, bytes * 8.0 / chars,
+				chars / (compressNanos / 1e3), chars / (decompressNanos / 1e3));
+	}
+
+	private static byte[] encode(char[] message, CanonicalCode code) {
+		BitWriter writer = new BitWriter(message.length);
+		for (char c : message) {
+			writer.write(code.codes[c], code.lengths[c]);
+		}
+		return writer.toByteArray();
+	}
+
+	private static void decode(byte[] encoded, DecodeTable table, char[] output) {
+		BitReader in = new BitReader(encoded, 0, encoded.length);
+		for (int i = 0; i < output.length; i++) {
+			output[i] = (char) table.next(in);
+		}
+	}
+
+	/**
+	 * @return Fastest of REPETITIONS timed runs, in nanoseconds, after one
+	 *         untimed warm-up run
+	 */
+	static long best(Runnable run) {
+		run.run();
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < REPETITIONS; i++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	/**
+	 * @return Message of the given length drawn from a Zipf distribution with the
+	 *         given exponent over the given number of distinct chars
+	 */
+	static char[] zipf(int length, int symbols, double exponent, long seed) {
+		double[] cumulative = new double[symbols];
+		double total = 0;
+		for (int i = 0; i < symbols; i++) {
+			total += 1 / Math.pow(i + 1, exponent);
+			cumulative[i] = total;
+		}
+		Random random = new Random(seed);
+		char[] message = new char[length];
+		for (int i = 0; i < length; i++) {
+			int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+			message[i] = (char) ('!' + (rank < 0 ? -rank - 1 : rank));
+		}
+		return message;
+	}
+
+}
@@ -0,0 +1,113 @@
+package huffman;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Streaming Huffman decompressor for streams written by a HuffmanWriter. The
+ * Encoding Map is read from the stream's header, and the stream is decoded one
+ * block at a time, so memory use is bounded by the block size declared in the
+ * stream's header, which may be at most HuffmanWriter.MAX_BLOCK_CHARS.
+ */
+public class HuffmanReader extends Reader {
+
+	// A character's code is at most 32 bits, which bounds a valid block's size
+	private static final int MAX_BYTES_PER_CHAR = CanonicalCode.MAX_LENGTH / 8;
+
+	private final InputStream in;
+	private final Huffman huffman;
+	private final int blockChars;
+	private byte[] bytes = new byte[0];
+	private char[] block = new char[0];
+	private int position, limit;
+	private boolean finished, closed;
+
+	public HuffmanReader(ReadableByteChannel channel) throws IOException {
+		this(new BufferedInputStream(Channels.newInputStream(channel)));
+	}
+
+	/**
+	 * @param in Stream positioned at the start of a HuffmanWriter's output; closed
+	 *           when this reader is closed
+	 */
+	public HuffmanReader(InputStream in) throws IOException {
+		this.in = in;
+		this.huffman = Huffman.fromCode(CanonicalCode.readHeader(in, Character.MAX_VALUE + 1));
+		this.blockChars = Varint.readInt(in);
+		if (blockChars < 1 || blockChars > HuffmanWriter.MAX_BLOCK_CHARS) {
+			throw new IOException("Corrupt Huffman stream: block size " + blockChars);
+		}
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (position == limit && !nextBlock()) {
+			return -1;
+		}
+		int n = Math.min(len, limit - position);
+		System.arraycopy(block, position, cbuf, off, n);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		in.close();
+	}
+
+	/**
+	 * Reads and decodes the next block.
+	 * @return false at the end of the stream
+	 */
+	private boolean nextBlock() throws IOException {
+		if (finished) {
+			return false;
+		}
+		int chars = Varint.readInt(in);
+		if (chars == 0) {
+			finished = true;
+			return false;
+		}
+		if (chars > blockChars) {
+			throw new IOException("Corrupt Huffman stream: block of " + chars + " chars exceeds the block size " + blockChars);
+		}
+		int length = Varint.readInt(in);
+		if (length > (long) chars * MAX_BYTES_PER_CHAR + 1) {
+			throw new IOException("Corrupt Huffman stream: block of " + chars + " chars can't take " + length + " bytes");
+		}
+		if (bytes.length < length) {
+			bytes = new byte[length];
+		}
+		for (int read = 0; read < length;) {
+			int n = in.read(bytes, read, length - read);
+			if (n < 0) {
+				throw new EOFException("Truncated Huffman stream");
+			}
+			read += n;
+		}
+		if (block.length < chars) {
+			block = new char[chars];
+		}
+		try {
+			huffman.decode(new BitReader(bytes, 0, length), block, 0, chars);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Corrupt Huffman stream", e);
+		}
+		position = 0;
+		limit = chars;
+		return true;
+	}
+
+}
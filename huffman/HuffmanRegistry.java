@@ -0,0 +1,235 @@
+package huffman;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of trained Huffman instances, one per named model (e.g., per tenant),
+ * for services that compress messages from a handful of distinct character
+ * distributions. Models are stored in a directory as their headers (see
+ * Huffman.header), loaded lazily on first use, and kept in memory in a bounded
+ * cache that evicts the least recently used model once full, so a trained
+ * Encoding Map is built once per process rather than once per message.
+ *
+ * The registry can also tell when a message's distribution has drifted far
+ * enough from its model that retraining on it would shrink the output by more
+ * than a given fraction. All methods are thread-safe. The cache's lock is only
+ * held to look up and insert models; reading, parsing and training happen
+ * outside it, under one of a fixed set of lock stripes picked by model name, so
+ * a load or retrain only ever waits for another of the same stripe and never
+ * holds up cache hits.
+ */
+public class HuffmanRegistry {
+
+	private static final Pattern MODEL_NAME = Pattern.compile("[A-Za-z0-9._-]{1,128}");
+	private static final String SUFFIX = ".huff";
+	private static final int LOCK_STRIPES = 64;
+
+	private final Path directory;
+	private final Map<String, Huffman> cache;
+	private final Object[] stripes = new Object[LOCK_STRIPES];
+	private long hits, loads;
+
+	/**
+	 * @param directory Directory the models are stored in; created if missing
+	 * @param capacity  Most models to keep in memory at once
+	 */
+	public HuffmanRegistry(Path directory, int capacity) throws IOException {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+		}
+		this.directory = Files.createDirectories(directory);
+		this.cache = new LinkedHashMap<String, Huffman>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Huffman> eldest) {
+				return size() > capacity;
+			}
+		};
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			stripes[i] = new Object();
+		}
+	}
+
+	// -----------------------------------------------
+	// Models
+	// -----------------------------------------------
+
+	/**
+	 * Returns the named model, loading it from the registry's directory if it
+	 * isn't cached.
+	 *
+	 * @param name Model name: 1 to 128 letters, digits, '.', '_' or '-'
+	 * @return The model, or null if none has been trained under that name
+	 */
+	public Huffman get(String name) {
+		Path file = fileOf(name);
+		Huffman huffman = cached(name, true);
+		if (huffman != null) {
+			return huffman;
+		}
+		synchronized (stripeOf(name)) {
+			// Loaded or trained while this thread waited for the stripe
+			huffman = cached(name, false);
+			if (huffman != null) {
+				return huffman;
+			}
+			if (!Files.exists(file)) {
+				return null;
+			}
+			try {
+				huffman = Huffman.fromHeader(Files.readAllBytes(file));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			synchronized (cache) {
+				loads++;
+				cache.put(name, huffman);
+			}
+			return huffman;
+		}
+	}
+
+	/**
+	 * Builds a model from the given corpus and stores it under the given name,
+	 * replacing any model already there.
+	 *
+	 * @param name   Model name, as for get
+	 * @param corpus Text whose character distribution the model should fit; every
+	 *               character to be compressed later must appear in it
+	 * @return The new model
+	 */
+	public Huffman train(String name, String corpus) {
+		Path file = fileOf(name);
+		Huffman huffman = new Huffman(corpus);
+		byte[] header = huffman.header();
+		// The stripe orders this against other loads and trains of the name, so
+		// the cache ends up holding whichever model was stored last
+		synchronized (stripeOf(name)) {
+			try {
+				// Write then rename, so no reader ever sees a partial header
+				Path temp = Files.createTempFile(directory, "." + name + "-", ".tmp");
+				Files.write(temp, header);
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			synchronized (cache) {
+				cache.put(name, huffman);
+			}
+		}
+		return huffman;
+	}
+
+	/**
+	 * @return Number of get calls answered from the cache
+	 */
+	public long hits() {
+		synchronized (cache) {
+			return hits;
+		}
+	}
+
+	/**
+	 * @return Number of models read from the directory because they weren't cached
+	 */
+	public long loads() {
+		synchronized (cache) {
+			return loads;
+		}
+	}
+
+	/**
+	 * @param countHit Whether to count finding the model as a cache hit
+	 * @return The cached model, or null
+	 */
+	private Huffman cached(String name, boolean countHit) {
+		synchronized (cache) {
+			Huffman huffman = cache.get(name);
+			if (huffman != null && countHit) {
+				hits++;
+			}
+			return huffman;
+		}
+	}
+
+	private Object stripeOf(String name) {
+		return stripes[(name.hashCode() & 0x7FFFFFFF) % LOCK_STRIPES];
+	}
+
+	private Path fileOf(String name) {
+		if (!MODEL_NAME.matcher(name).matches()) {
+			throw new IllegalArgumentException("Invalid model name: " + name);
+		}
+		return directory.resolve(name + SUFFIX);
+	}
+
+	// -----------------------------------------------
+	// Drift Detection
+	// -----------------------------------------------
+
+	/**
+	 * Whether the named model should be retrained on the given message.
+	 *
+	 * @param name      Model name, as for get
+	 * @param message   A message to be compressed with the model
+	 * @param threshold Fraction of the output size, in [0, 1], that retraining
+	 *                  must save for it to be worthwhile
+	 * @return true if there is no such model, or drift(model, message) exceeds
+	 *         the threshold
+	 */
+	public boolean shouldRetrain(String name, String message, double threshold) {
+		Huffman huffman = get(name);
+		return huffman == null || drift(huffman, message) > threshold;
+	}
+
+	/**
+	 * Measures how far a message's character distribution has drifted from a
+	 * model, as the fraction of its compressed size that compressing it with a
+	 * model trained on the message itself (header included) would save.
+	 *
+	 * @param huffman The model
+	 * @param message A message to be compressed with the model
+	 * @return The fraction saved by retraining, up to 1; 0 or below if the model
+	 *         is already as good; positive infinity if the message has characters
+	 *         the model can't encode
+	 */
+	public static double drift(Huffman huffman, String message) {
+		int[] counts = Histogram.of(message);
+		byte[] modelLengths = huffman.code().lengths;
+		long modelBits = 0;
+		for (int c = 0; c < counts.length; c++) {
+			if (counts[c] > 0) {
+				if (modelLengths[c] == 0) {
+					return Double.POSITIVE_INFINITY;
+				}
+				modelBits += (long) counts[c] * modelLengths[c];
+			}
+		}
+		if (modelBits == 0) {
+			return 0;
+		}
+
+		CanonicalCode fresh = new CanonicalCode(PackageMerge.lengths(counts, CanonicalCode.MAX_LENGTH));
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		try {
+			fresh.writeHeader(header);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		long freshBits = header.size() * 8L;
+		for (int c = 0; c < counts.length; c++) {
+			freshBits += (long) counts[c] * fresh.lengths[c];
+		}
+		return (double) (modelBits - freshBits) / modelBits;
+	}
+
+}
@@ -0,0 +1,757 @@
+package huffman;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class HuffmanTests {
+
+    private static final String CORPUS = "the quick brown fox jumps over the lazy dog, THE QUICK BROWN FOX!";
+
+    // Canonical Code Tests
+    // -----------------------------------------------
+    @Test
+    public void CCHuffmanTest_t0() {
+        // Codes of each length are consecutive in symbol order, following on
+        // from the last code of the length before
+        CanonicalCode code = new CanonicalCode(new byte[] { 2, 1, 3, 3, 0 });
+        assertArrayEquals(new int[] { 0b10, 0b0, 0b110, 0b111, 0 }, code.codes);
+
+        CanonicalCode single = new CanonicalCode(new byte[] { 0, 1 });
+        assertArrayEquals(new int[] { 0, 0 }, single.codes);
+
+        try {
+            new CanonicalCode(new byte[] { 1, 1, 1 });
+            fail("Built a code that isn't prefix-free");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            new CanonicalCode(new byte[] { 33 });
+            fail("Built a code longer than 32 bits");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void CCHuffmanTest_t1() throws IOException {
+        // Headers round-trip exactly, over alphabets of any size
+        Random random = new Random(33);
+        for (int t = 0; t < 50; t++) {
+            int[] counts = new int[1 + random.nextInt(3000)];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = random.nextInt(4) == 0 ? 1 + random.nextInt(1000) : 0;
+            }
+            CanonicalCode code = new CanonicalCode(PackageMerge.lengths(counts, CanonicalCode.MAX_LENGTH));
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            code.writeHeader(header);
+            CanonicalCode read = CanonicalCode.readHeader(new ByteArrayInputStream(header.toByteArray()), counts.length);
+            assertArrayEquals(code.lengths, read.lengths);
+            assertArrayEquals(code.codes, read.codes);
+        }
+    }
+
+
+    // Decode Table Tests
+    // -----------------------------------------------
+    @Test
+    public void DTHuffmanTest_t0() {
+        // Every code decodes to its symbol, whether it fits the primary table or
+        // goes on into a secondary one; lengths 1..32 plus a second 32 fill the
+        // code space exactly
+        byte[] lengths = new byte[CanonicalCode.MAX_LENGTH + 1];
+        for (int symbol = 0; symbol < CanonicalCode.MAX_LENGTH; symbol++) {
+            lengths[symbol] = (byte) (symbol + 1);
+        }
+        lengths[CanonicalCode.MAX_LENGTH] = CanonicalCode.MAX_LENGTH;
+        CanonicalCode code = new CanonicalCode(lengths);
+        DecodeTable table = code.decodeTable();
+        BitWriter writer = new BitWriter(16);
+        for (int symbol = lengths.length - 1; symbol >= 0; symbol--) {
+            writer.write(code.codes[symbol], lengths[symbol]);
+        }
+        byte[] bits = writer.toByteArray();
+        BitReader in = new BitReader(bits, 0, bits.length);
+        for (int symbol = lengths.length - 1; symbol >= 0; symbol--) {
+            assertEquals(symbol, table.next(in));
+        }
+    }
+
+    @Test
+    public void DTHuffmanTest_t1() {
+        // Bits that start no code are rejected, in either table
+        DecodeTable shortCodes = new CanonicalCode(new byte[] { 1, 2 }).decodeTable();
+        byte[] ones = { -1, -1, -1, -1 };
+        try {
+            shortCodes.next(new BitReader(ones, 0, ones.length));
+            fail("Decoded an invalid code");
+        } catch (IllegalArgumentException e) {
+        }
+        byte[] lengths = new byte[DecodeTable.PRIMARY_BITS + 2];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            lengths[symbol] = (byte) (symbol + 1);
+        }
+        DecodeTable longCodes = new CanonicalCode(lengths).decodeTable();
+        try {
+            longCodes.next(new BitReader(ones, 0, ones.length));
+            fail("Decoded an invalid code");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+
+    // Round-trip Tests
+    // -----------------------------------------------
+    @Test
+    public void RTHuffmanTest_t0() {
+        Huffman huffman = new Huffman(CORPUS);
+        for (String message : new String[] { "", "t", "the lazy fox", CORPUS }) {
+            assertEquals(message, huffman.decompress(huffman.compress(message)));
+        }
+
+        // Past the one-byte varint length, and past a block of bits
+        Random random = new Random(31);
+        for (int length : new int[] { 127, 128, 129, 16384, 100000 }) {
+            String message = randomMessage(random, length, CORPUS);
+            assertEquals(message, huffman.decompress(huffman.compress(message)));
+        }
+    }
+
+    @Test
+    public void RTHuffmanTest_t1() {
+        // A lone char still gets a code, one bit per char
+        Huffman single = new Huffman("aaaa");
+        assertEquals("aaaaaaa", single.decompress(single.compress("aaaaaaa")));
+        assertEquals(2, single.compress("aaaaaaa").length);
+
+        // An empty corpus can only compress empty messages
+        Huffman empty = new Huffman("");
+        assertEquals("", empty.decompress(empty.compress("")));
+        try {
+            empty.compress("a");
+            fail("Compressed a char with no code");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            new Huffman(CORPUS).compress("the quick brown fox?");
+            fail("Compressed a char with no code");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+
+    // Final Character Tests
+    // -----------------------------------------------
+    @Test
+    public void FCHuffmanTest_t0() {
+        Huffman huffman = new Huffman("abc");
+        assertEquals("abc", huffman.decompress(huffman.compress("abc")));
+        assertEquals("c", huffman.decompress(huffman.compress("c")));
+        assertEquals("abcc", Huffman.decompressWithHeader(huffman.compressWithHeader("abcc")));
+    }
+
+    @Test
+    public void FCHuffmanTest_t1() {
+        // Fibonacci counts give the rarest char the longest code, well past a
+        // single lookup in the decoding table
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0, a = 1, b = 1; i < 20; i++, b = a + b, a = b - a) {
+            for (int j = 0; j < a; j++) {
+                sb.append((char) ('A' + i));
+            }
+        }
+        String corpus = sb.toString(), prefix = randomMessage(new Random(32), 64, corpus);
+        for (int maxLength : new int[] { DecodeTable.PRIMARY_BITS, DecodeTable.PRIMARY_BITS + 1, 32 }) {
+            Huffman huffman = new Huffman(corpus, maxLength);
+            // Every alignment of the final code against the last byte
+            for (int length = 0; length <= prefix.length(); length++) {
+                String message = prefix.substring(0, length) + 'A';
+                assertEquals(message, huffman.decompress(huffman.compress(message)));
+                assertEquals(message, Huffman.decompressWithHeader(huffman.compressWithHeader(message)));
+            }
+        }
+    }
+
+
+    // Header Tests
+    // -----------------------------------------------
+    @Test
+    public void HDHuffmanTest_t0() {
+        Huffman huffman = new Huffman(CORPUS);
+        Huffman copy = Huffman.fromHeader(huffman.header());
+        assertArrayEquals(huffman.header(), copy.header());
+        assertArrayEquals(huffman.compress(CORPUS), copy.compress(CORPUS));
+        assertEquals(CORPUS, copy.decompress(huffman.compress(CORPUS)));
+
+        assertEquals(CORPUS, Huffman.decompressWithHeader(huffman.compressWithHeader(CORPUS)));
+        assertEquals("", Huffman.decompressWithHeader(huffman.compressWithHeader("")));
+        Huffman empty = new Huffman("");
+        assertEquals("", Huffman.decompressWithHeader(empty.compressWithHeader("")));
+    }
+
+    @Test
+    public void HDHuffmanTest_t1() {
+        // Chars far apart in the alphabet, and length-limited codes
+        String corpus = "\u0000\u0001\u00e9\u4e2d\uffff" + CORPUS;
+        for (int maxLength : new int[] { 6, 9, 32 }) {
+            Huffman huffman = new Huffman(corpus, maxLength);
+            assertEquals(corpus, Huffman.decompressWithHeader(huffman.compressWithHeader(corpus)));
+        }
+
+        try {
+            Huffman.fromHeader(new byte[] { 5, 0 });
+            fail("Read a truncated header");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void HDHuffmanTest_t2() {
+        // Message lengths the coded bits can't hold are rejected before the output
+        // is allocated: 8 chars per byte at most under a 1-bit code, fewer under
+        // longer ones, and none at all under an empty code
+        Huffman single = new Huffman("a");
+        assertEquals("aaaaaaaa", single.decompress(new byte[] { 8, 0 }));
+        byte[][] corrupt = { { 9, 0 }, { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 7, 0 } };
+        for (byte[] blob : corrupt) {
+            try {
+                single.decompress(blob);
+                fail("Decompressed more chars than the bits can hold");
+            } catch (IllegalArgumentException e) {
+            }
+        }
+        Huffman huffman = new Huffman(CORPUS);
+        byte[] tooLong = huffman.compress("the lazy fox");
+        tooLong[0] = (byte) (8 * (tooLong.length - 1) + 1);
+        try {
+            huffman.decompress(tooLong);
+            fail("Decompressed more chars than the bits can hold");
+        } catch (IllegalArgumentException e) {
+        }
+        Huffman empty = new Huffman("");
+        try {
+            empty.decompress(new byte[] { 1 });
+            fail("Decompressed a char under an empty code");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            Huffman.decompressWithHeader(new byte[] { 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 7 });
+            fail("Decompressed chars under an empty code");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+
+    // Package-Merge Tests
+    // -----------------------------------------------
+    @Test
+    public void PMHuffmanTest_t0() {
+        assertArrayEquals(new byte[] { 0, 0 }, PackageMerge.lengths(new int[] { 0, 0 }, 4));
+        assertArrayEquals(new byte[] { 0, 1, 0 }, PackageMerge.lengths(new int[] { 0, 9, 0 }, 4));
+        assertArrayEquals(new byte[] { 1, 1 }, PackageMerge.lengths(new int[] { 1, 1000 }, 1));
+        try {
+            PackageMerge.lengths(new int[] { 1, 1, 1 }, 1);
+            fail("Gave 3 symbols 1-bit codes");
+        } catch (IllegalArgumentException e) {
+        }
+
+        // Fibonacci counts make the deepest possible Huffman trie
+        int[] fibonacci = new int[30];
+        fibonacci[0] = fibonacci[1] = 1;
+        for (int i = 2; i < fibonacci.length; i++) {
+            fibonacci[i] = fibonacci[i - 1] + fibonacci[i - 2];
+        }
+        for (int maxLength = 5; maxLength <= 32; maxLength++) {
+            byte[] lengths = PackageMerge.lengths(fibonacci, maxLength);
+            assertEquals(Math.min(maxLength, fibonacci.length - 1), max(lengths));
+            assertKraftEquality(lengths);
+        }
+    }
+
+    @Test
+    public void PMHuffmanTest_t1() {
+        // Optimal cost against every monotone assignment of lengths, on skewed
+        // histograms small enough to enumerate
+        Random random = new Random(34);
+        for (int t = 0; t < 200; t++) {
+            int n = 2 + random.nextInt(7);
+            int[] frequencies = new int[n];
+            for (int i = 0; i < n; i++) {
+                frequencies[i] = 1 + (int) Math.pow(2, random.nextInt(16)) + random.nextInt(3);
+            }
+            int maxLength = 32 - Integer.numberOfLeadingZeros(n - 1) + random.nextInt(3);
+            byte[] lengths = PackageMerge.lengths(frequencies, maxLength);
+            assertTrue(max(lengths) <= maxLength);
+            assertKraftEquality(lengths);
+            assertEquals(referenceCost(frequencies, maxLength), cost(frequencies, lengths));
+        }
+    }
+
+
+    // Stream Tests
+    // -----------------------------------------------
+    @Test
+    public void STHuffmanTest_t0() throws IOException {
+        Huffman huffman = new Huffman(CORPUS);
+        String message = randomMessage(new Random(35), 5000, CORPUS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new HuffmanWriter(huffman, bytes, 256)) {
+            writer.write(message, 0, 1000);
+            writer.flush();
+            writer.write(message.toCharArray(), 1000, 3000);
+            for (int i = 4000; i < message.length(); i++) {
+                writer.write(message.charAt(i));
+            }
+        }
+
+        try (Reader reader = new HuffmanReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(message, readAll(reader));
+            assertEquals(-1, reader.read());
+        }
+    }
+
+    @Test
+    public void STHuffmanTest_t1() throws IOException {
+        Huffman huffman = new Huffman(CORPUS);
+        String message = randomMessage(new Random(135), 200000, CORPUS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new HuffmanWriter(huffman, Channels.newChannel(bytes))) {
+            writer.write(message);
+        }
+        try (Reader reader = new HuffmanReader(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())))) {
+            assertEquals(message, readAll(reader));
+        }
+
+        // Nothing written but the header and end marker
+        bytes.reset();
+        new HuffmanWriter(huffman, bytes).close();
+        assertEquals("", readAll(new HuffmanReader(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+
+    @Test
+    public void STHuffmanTest_t2() throws IOException {
+        // Block sizes past the declared (or largest allowed) block size are
+        // rejected before anything is allocated for them
+        byte[] header = new Huffman(CORPUS).header();
+        long[][] corrupt = {
+            { HuffmanWriter.MAX_BLOCK_CHARS + 1L },
+            { 0 },
+            { 256, 257, 1000 },
+            { 256, Integer.MAX_VALUE - 8, 0 },
+        };
+        for (long[] varints : corrupt) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(header);
+            for (long varint : varints) {
+                Varint.write(bytes, varint);
+            }
+            try {
+                readAll(new HuffmanReader(new ByteArrayInputStream(bytes.toByteArray())));
+                fail("Read a corrupt stream: " + Arrays.toString(varints));
+            } catch (IOException e) {
+            }
+        }
+        try {
+            new HuffmanWriter(new Huffman(CORPUS), new ByteArrayOutputStream(), HuffmanWriter.MAX_BLOCK_CHARS + 1);
+            fail("Wrote blocks too big to read");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void STHuffmanTest_t3() throws IOException {
+        // A block with a char the code lacks is dropped whole, and the blocks
+        // either side of it still decode
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HuffmanWriter writer = new HuffmanWriter(new Huffman(CORPUS), bytes, 4);
+        writer.write("the ");
+        try {
+            writer.write("ab?d");
+            fail("Wrote a char with no code");
+        } catch (IllegalArgumentException e) {
+        }
+        writer.write("fox!");
+        writer.close();
+        assertEquals("the fox!", readAll(new HuffmanReader(new ByteArrayInputStream(bytes.toByteArray()))));
+
+        // A symbol gap that would wrap the symbol index around past the alphabet
+        bytes = new ByteArrayOutputStream();
+        Varint.write(bytes, 2);
+        Varint.write(bytes, 0);
+        bytes.write(1);
+        Varint.write(bytes, Integer.MAX_VALUE);
+        bytes.write(1);
+        try {
+            readAll(new HuffmanReader(new ByteArrayInputStream(bytes.toByteArray())));
+            fail("Read a header with an out-of-range symbol");
+        } catch (IOException e) {
+        }
+    }
+
+
+    // Parallel Block Tests
+    // -----------------------------------------------
+    @Test
+    public void PBHuffmanTest_t0() {
+        Huffman huffman = new Huffman(CORPUS);
+        String message = randomMessage(new Random(36), 10000, CORPUS);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        // Blocks that divide the length, that don't, and a single partial block
+        for (int blockChars : new int[] { 1000, 999, 7, 20000 }) {
+            byte[] compressed = huffman.compressParallel(message, blockChars, pool);
+            assertEquals(message, huffman.decompressParallel(compressed, pool));
+            int blocks = (message.length() + blockChars - 1) / blockChars;
+            StringBuilder sb = new StringBuilder();
+            for (int b = 0; b < blocks; b++) {
+                sb.append(huffman.decompressBlock(compressed, b));
+            }
+            assertEquals(message, sb.toString());
+        }
+        byte[] none = huffman.compressParallel("", 100, pool);
+        assertEquals("", huffman.decompressParallel(none, pool));
+        pool.shutdown();
+    }
+
+    @Test
+    public void PBHuffmanTest_t1() {
+        Huffman huffman = new Huffman(CORPUS);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        byte[] compressed = huffman.compressParallel(CORPUS, 10, pool);
+        assertEquals(CORPUS.substring(60), huffman.decompressBlock(compressed, 6));
+        try {
+            huffman.decompressBlock(compressed, 7);
+            fail("Decompressed a block past the end");
+        } catch (IndexOutOfBoundsException e) {
+        }
+
+        // Block sizes so large that counting the blocks passes Integer.MAX_VALUE
+        for (int blockChars : new int[] { Integer.MAX_VALUE, Integer.MAX_VALUE - 1 }) {
+            compressed = huffman.compressParallel(CORPUS, blockChars, pool);
+            assertEquals(CORPUS, huffman.decompressParallel(compressed, pool));
+            assertEquals(CORPUS, huffman.decompressBlock(compressed, 0));
+        }
+        pool.shutdown();
+    }
+
+
+    // Malformed Input Tests
+    // -----------------------------------------------
+    @Test
+    public void MIHuffmanTest_t0() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Varint.write(bytes, Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, Varint.read(ByteBuffer.wrap(bytes.toByteArray())));
+        assertEquals(Long.MAX_VALUE, Varint.read(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Ten-byte varints that would set the sign bit, or run on past it
+        byte[][] malformed = {
+            { -1, -1, -1, -1, -1, -1, -1, -1, -1, 1 },
+            { -128, -128, -128, -128, -128, -128, -128, -128, -128, 1 },
+            { -1, -1, -1, -1, -1, -1, -1, -1, -1, -128, 0 },
+        };
+        Huffman huffman = new Huffman(CORPUS);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        for (byte[] varint : malformed) {
+            try {
+                Varint.read(new ByteArrayInputStream(varint));
+                fail("Read a malformed varint");
+            } catch (IOException e) {
+            }
+            try {
+                huffman.decompress(varint);
+                fail("Decompressed a malformed length");
+            } catch (IllegalArgumentException e) {
+            }
+            try {
+                AdaptiveHuffman.decompress(varint);
+                fail("Decompressed a malformed length");
+            } catch (IllegalArgumentException e) {
+            }
+            try {
+                huffman.decompressParallel(varint, pool);
+                fail("Decompressed a malformed length");
+            } catch (IllegalArgumentException e) {
+            }
+        }
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void MIHuffmanTest_t1() {
+        // A block bit length of Long.MAX_VALUE, which overflows rounding up to bytes
+        Huffman huffman = new Huffman(CORPUS);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        byte[] compressed = huffman.compressParallel(CORPUS, 100, pool);
+        byte[] corrupt = Arrays.copyOf(compressed, 13);
+        corrupt[3] = corrupt[4] = corrupt[5] = corrupt[6] = corrupt[7] = corrupt[8] = corrupt[9] = corrupt[10] = corrupt[11] = -1;
+        corrupt[12] = 0;
+        try {
+            huffman.decompressParallel(corrupt, pool);
+            fail("Decompressed a corrupt block index");
+        } catch (IllegalArgumentException e) {
+        }
+        pool.shutdown();
+    }
+
+
+    // Histogram Tests
+    // -----------------------------------------------
+    @Test
+    public void HGHuffmanTest_t0() {
+        // Counts split across several per-worker chunks merge to the sequential counts
+        Random random = new Random(37);
+        String corpus = randomMessage(random, 3 << 20, "\u0000\uffff" + CORPUS);
+        byte[] data = new byte[3 << 20];
+        random.nextBytes(data);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        assertArrayEquals(Histogram.of(corpus), Histogram.of(corpus, pool));
+        assertArrayEquals(Histogram.of(data), Histogram.of(data, pool));
+        assertEquals(data.length, Arrays.stream(Histogram.of(data, pool)).sum());
+        assertArrayEquals(new int[Histogram.CHARS], Histogram.of("", pool));
+        pool.shutdown();
+    }
+
+
+    // Adaptive Tests
+    // -----------------------------------------------
+    @Test
+    public void ADHuffmanTest_t0() {
+        Random random = new Random(38);
+        for (String message : new String[] { "", "a", "abc", CORPUS, randomMessage(random, 100000, CORPUS) }) {
+            assertEquals(message, AdaptiveHuffman.decompress(AdaptiveHuffman.compress(message)));
+        }
+
+        // Distribution shifts, many distinct chars, and short rebuild intervals
+        StringBuilder sb = new StringBuilder(randomMessage(random, 50000, "ab"));
+        for (int i = 0; i < 50000; i++) {
+            sb.append((char) random.nextInt(Character.MAX_VALUE + 1));
+        }
+        String message = sb.toString();
+        for (int interval : new int[] { 300, AdaptiveHuffman.DEFAULT_REBUILD_INTERVAL }) {
+            assertEquals(message, AdaptiveHuffman.decompress(AdaptiveHuffman.compress(message, interval)));
+        }
+        String prefix = message.substring(49000, 51000);
+        assertEquals(prefix, AdaptiveHuffman.decompress(AdaptiveHuffman.compress(prefix, 1)));
+    }
+
+
+    // Byte Mode Tests
+    // -----------------------------------------------
+    @Test
+    public void BYHuffmanTest_t0() {
+        byte[] corpus = (CORPUS + " \u00e9\u4e2d").getBytes(StandardCharsets.UTF_8);
+        ByteHuffman huffman = new ByteHuffman(corpus);
+        assertArrayEquals(corpus, huffman.decompress(huffman.compress(corpus)));
+        assertArrayEquals(new byte[0], huffman.decompress(huffman.compress(new byte[0])));
+        assertArrayEquals(corpus, ByteHuffman.decompressWithHeader(huffman.compressWithHeader(corpus)));
+        assertArrayEquals(huffman.header(), ByteHuffman.fromHeader(huffman.header()).header());
+
+        // Every byte value, with an 8-bit cap
+        byte[] all = new byte[4096];
+        new Random(39).nextBytes(all);
+        ByteHuffman capped = new ByteHuffman(all, 8);
+        assertArrayEquals(all, capped.decompress(capped.compress(all)));
+    }
+
+    @Test
+    public void BYHuffmanTest_t1() {
+        byte[] corpus = CORPUS.getBytes(StandardCharsets.UTF_8);
+        ByteHuffman huffman = new ByteHuffman(corpus);
+        for (boolean direct : new boolean[] { false, true }) {
+            ByteBuffer message = direct ? ByteBuffer.allocateDirect(corpus.length) : ByteBuffer.allocate(corpus.length);
+            message.put(corpus).flip();
+            ByteBuffer compressed = huffman.compress(message);
+            assertFalse(message.hasRemaining());
+            assertArrayEquals(huffman.compress(corpus), remaining(compressed.duplicate()));
+
+            ByteBuffer input = direct ? ByteBuffer.allocateDirect(compressed.remaining()) : ByteBuffer.allocate(compressed.remaining());
+            input.put(compressed).flip();
+            assertArrayEquals(corpus, remaining(huffman.decompress(input)));
+        }
+    }
+
+    @Test
+    public void BYHuffmanTest_t2() {
+        // The framing shared with Huffman: corrupt headers and lengths past what
+        // the coded bits hold are rejected the same way
+        ByteHuffman single = new ByteHuffman(new byte[] { 7 });
+        assertArrayEquals(new byte[] { 7, 7, 7, 7, 7, 7, 7, 7 }, single.decompress(new byte[] { 8, 0 }));
+        try {
+            single.decompress(new byte[] { 9, 0 });
+            fail("Decompressed more bytes than the bits can hold");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            ByteHuffman.decompressWithHeader(new byte[] { 1, (byte) 0x80, 2, 1, 0 });
+            fail("Read a symbol past the byte alphabet");
+        } catch (IllegalArgumentException e) {
+        }
+        byte[] blob = single.compressWithHeader(new byte[] { 7, 7, 7 });
+        assertArrayEquals(new byte[] { 7, 7, 7 }, ByteHuffman.decompressWithHeader(blob));
+        assertArrayEquals(single.header(), Arrays.copyOf(blob, single.header().length));
+    }
+
+
+    // Registry Tests
+    // -----------------------------------------------
+    @Test
+    public void RGHuffmanTest_t0() throws IOException {
+        Path directory = Files.createTempDirectory("huffman-registry");
+        HuffmanRegistry registry = new HuffmanRegistry(directory, 2);
+        assertNull(registry.get("tenant-a"));
+        Huffman trained = registry.train("tenant-a", CORPUS);
+        assertSame(trained, registry.get("tenant-a"));
+        assertEquals(1, registry.hits());
+
+        // A fresh registry loads the stored header once, then hits the cache
+        HuffmanRegistry reopened = new HuffmanRegistry(directory, 2);
+        Huffman loaded = reopened.get("tenant-a");
+        assertArrayEquals(trained.header(), loaded.header());
+        assertSame(loaded, reopened.get("tenant-a"));
+        assertEquals(1, reopened.loads());
+        assertEquals(1, reopened.hits());
+
+        // Least recently used models are evicted, and reloaded on demand
+        reopened.train("tenant-b", "bbb");
+        reopened.train("tenant-c", "ccc");
+        assertNotSame(loaded, reopened.get("tenant-a"));
+        assertEquals(2, reopened.loads());
+
+        try {
+            registry.get("../escape");
+            fail("Accepted a path as a model name");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void RGHuffmanTest_t1() throws Exception {
+        // Concurrent loads and retrains of many tenants settle on the models
+        // stored last
+        Path directory = Files.createTempDirectory("huffman-registry");
+        HuffmanRegistry registry = new HuffmanRegistry(directory, 4);
+        ForkJoinPool pool = new ForkJoinPool(8);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            String name = "tenant-" + (t % 8);
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    Huffman huffman = registry.get(name);
+                    if (huffman == null || i % 10 == 0) {
+                        huffman = registry.train(name, CORPUS + name);
+                    }
+                    String message = "the " + name;
+                    assertEquals(message, huffman.decompress(huffman.compress(message)));
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.get();
+        }
+        pool.shutdown();
+        HuffmanRegistry reopened = new HuffmanRegistry(directory, 4);
+        for (int t = 0; t < 8; t++) {
+            assertArrayEquals(registry.get("tenant-" + t).header(), reopened.get("tenant-" + t).header());
+        }
+    }
+
+
+    // Helpers
+    // -----------------------------------------------
+    private static String randomMessage(Random random, int length, String chars) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[777];
+        for (int n; (n = reader.read(buffer, 0, buffer.length)) >= 0;) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] remaining(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int max(byte[] lengths) {
+        int max = 0;
+        for (byte length : lengths) {
+            max = Math.max(max, length);
+        }
+        return max;
+    }
+
+    private static void assertKraftEquality(byte[] lengths) {
+        long sum = 0;
+        for (byte length : lengths) {
+            if (length > 0) {
+                sum += 1L << (32 - length);
+            }
+        }
+        assertEquals(1L << 32, sum);
+    }
+
+    private static long cost(int[] frequencies, byte[] lengths) {
+        long cost = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            cost += (long) frequencies[i] * lengths[i];
+        }
+        return cost;
+    }
+
+    /**
+     * Smallest cost of any prefix code with lengths in [1, maxLength]: some
+     * optimal code gives the more frequent of any two symbols the shorter code,
+     * so it's enough to try every non-decreasing run of lengths against the
+     * frequencies sorted in decreasing order.
+     */
+    private static long referenceCost(int[] frequencies, int maxLength) {
+        int[] sorted = frequencies.clone();
+        Arrays.sort(sorted);
+        int[] descending = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            descending[i] = sorted[sorted.length - 1 - i];
+        }
+        return referenceCost(descending, maxLength, 0, 1, 0, 0);
+    }
+
+    private static long referenceCost(int[] descending, int maxLength, int i, int minLength, long kraft, long cost) {
+        if (kraft > 1L << 32) {
+            return Long.MAX_VALUE;
+        }
+        if (i == descending.length) {
+            return cost;
+        }
+        long best = Long.MAX_VALUE;
+        for (int length = minLength; length <= maxLength; length++) {
+            best = Math.min(best, referenceCost(descending, maxLength, i + 1, length,
+                    kraft + (1L << (32 - length)), cost + (long) descending[i] * length));
+        }
+        return best;
+    }
+}
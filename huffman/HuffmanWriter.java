@@ -0,0 +1,154 @@
+package huffman;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streaming Huffman compressor: characters written to a HuffmanWriter are
+ * encoded with a Huffman instance's Encoding Map and written to the wrapped
+ * byte stream in independently framed blocks, so text of any length can be
+ * compressed with memory bounded by the block size.
+ * 
+ * Stream format: the Encoding Map's header (see Huffman.header), a varint
+ * block size in characters, then any number of blocks of [varint character
+ * count, at most the block size][varint byte length][Huffman coded bits,
+ * 0-padded to a byte], then a final varint 0. The stream can be
+ * read back by a HuffmanReader with no access to the Huffman instance.
+ */
+public class HuffmanWriter extends Writer {
+
+	public static final int DEFAULT_BLOCK_CHARS = 1 << 16;
+
+	// Largest block size a reader accepts, so that a corrupt stream can't make it
+	// allocate more than a few tens of megabytes
+	public static final int MAX_BLOCK_CHARS = 1 << 24;
+
+	private final Huffman huffman;
+	private final OutputStream out;
+	private final char[] block;
+	private final BitWriter bits;
+	private int buffered;
+	private boolean closed;
+
+	public HuffmanWriter(Huffman huffman, OutputStream out) throws IOException {
+		this(huffman, out, DEFAULT_BLOCK_CHARS);
+	}
+
+	public HuffmanWriter(Huffman huffman, WritableByteChannel channel) throws IOException {
+		this(huffman, new BufferedOutputStream(Channels.newOutputStream(channel)), DEFAULT_BLOCK_CHARS);
+	}
+
+	/**
+	 * @param huffman    The Encoding Map to compress with
+	 * @param out        Stream to write the compressed stream to; closed when this
+	 *                   writer is closed
+	 * @param blockChars Number of characters per block, in [1, MAX_BLOCK_CHARS]
+	 */
+	public HuffmanWriter(Huffman huffman, OutputStream out, int blockChars) throws IOException {
+		if (blockChars < 1 || blockChars > MAX_BLOCK_CHARS) {
+			throw new IllegalArgumentException("Block size out of range: " + blockChars);
+		}
+		this.huffman = huffman;
+		this.out = out;
+		this.block = new char[blockChars];
+		this.bits = new BitWriter(blockChars / 2);
+		huffman.code().writeHeader(out);
+		Varint.write(out, blockChars);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			int n = Math.min(len, block.length - buffered);
+			System.arraycopy(cbuf, off, block, buffered, n);
+			buffered += n;
+			off += n;
+			len -= n;
+			if (buffered == block.length) {
+				writeBlock();
+			}
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			int n = Math.min(len, block.length - buffered);
+			str.getChars(off, off + n, block, buffered);
+			buffered += n;
+			off += n;
+			len -= n;
+			if (buffered == block.length) {
+				writeBlock();
+			}
+		}
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		ensureOpen();
+		block[buffered++] = (char) c;
+		if (buffered == block.length) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Ends the current block early, so that everything written so far can be
+	 * decoded by the reader, and flushes the wrapped stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		writeBlock();
+		out.flush();
+	}
+
+	/**
+	 * Writes any buffered characters and the end-of-stream marker, and closes the
+	 * wrapped stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			writeBlock();
+			Varint.write(out, 0);
+		} finally {
+			closed = true;
+			out.close();
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (buffered == 0) {
+			return;
+		}
+		// A block that fails to encode (a char without a code) or to be written is
+		// dropped whole, so that the half-encoded bits don't prefix the next block
+		try {
+			huffman.encode(block, 0, buffered, bits);
+			Varint.write(out, buffered);
+			Varint.write(out, bits.byteLength());
+			bits.drainTo(out);
+		} finally {
+			bits.reset();
+			buffered = 0;
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+}
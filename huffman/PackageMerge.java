@@ -0,0 +1,175 @@
+package huffman;
+
+import java.util.Arrays;
+
+/**
+ * Package-merge construction of optimal length-limited prefix codes: among all
+ * prefix codes whose codes are at most maxLength bits, finds the code lengths
+ * that minimize the total encoded size of the given symbol frequencies. When
+ * the unrestricted Huffman code already fits the limit, its lengths are used
+ * directly, since they are computed in linear time after sorting.
+ */
+final class PackageMerge {
+
+	private PackageMerge() {
+	}
+
+	/**
+	 * @param frequencies Number of occurrences of each symbol, indexed by symbol
+	 * @param maxLength   Longest code length allowed, in [1, 32]
+	 * @return The code length of each symbol, 0 for symbols with frequency 0
+	 */
+	static byte[] lengths(int[] frequencies, int maxLength) {
+		if (maxLength < 1 || maxLength > CanonicalCode.MAX_LENGTH) {
+			throw new IllegalArgumentException("Maximum code length out of range: " + maxLength);
+		}
+		byte[] lengths = new byte[frequencies.length];
+		int n = 0;
+		for (int frequency : frequencies) {
+			if (frequency > 0) {
+				n++;
+			}
+		}
+		if (n == 0) {
+			return lengths;
+		}
+		if (n > (1L << maxLength)) {
+			throw new IllegalArgumentException(n + " symbols can't have codes of at most " + maxLength + " bits");
+		}
+
+		// Leaves, lightest first, sorted as (frequency, symbol) pairs packed in longs
+		long[] sorted = new long[n];
+		for (int symbol = 0, i = 0; symbol < frequencies.length; symbol++) {
+			if (frequencies[symbol] > 0) {
+				sorted[i++] = ((long) frequencies[symbol] << 32) | symbol;
+			}
+		}
+		if (n == 1) {
+			lengths[(int) sorted[0]] = 1;
+			return lengths;
+		}
+		Arrays.sort(sorted);
+
+		long[] huffman = huffmanLengths(sorted);
+		if (huffman[0] <= maxLength) {
+			for (int i = 0; i < n; i++) {
+				lengths[(int) sorted[i]] = (byte) huffman[i];
+			}
+			return lengths;
+		}
+
+		// Item pool: the n leaves, then the packages formed at each level, each
+		// package pointing at the two items of the level below it was made from
+		int capacity = n + (maxLength - 1) * (n - 1);
+		long[] weight = new long[capacity];
+		int[] left = new int[capacity], right = new int[capacity];
+		int[] leaves = new int[n];
+		for (int i = 0; i < n; i++) {
+			weight[i] = sorted[i] >>> 32;
+			left[i] = -1 - (int) sorted[i];
+			leaves[i] = i;
+		}
+		int size = n;
+
+		int[] list = leaves;
+		for (int level = 1; level < maxLength; level++) {
+			int packages = list.length / 2;
+			int[] merged = new int[n + packages];
+			int l = 0, p = 0, m = 0;
+			while (l < n || p < packages) {
+				if (p < packages) {
+					long packageWeight = weight[list[2 * p]] + weight[list[2 * p + 1]];
+					if (l == n || packageWeight < weight[leaves[l]]) {
+						weight[size] = packageWeight;
+						left[size] = list[2 * p];
+						right[size] = list[2 * p + 1];
+						merged[m++] = size++;
+						p++;
+						continue;
+					}
+				}
+				merged[m++] = leaves[l++];
+			}
+			list = merged;
+		}
+
+		// Each appearance of a leaf among the 2n - 2 lightest items adds a bit
+		// to its code
+		int[] stack = new int[maxLength + 1];
+		for (int i = 0; i < 2 * n - 2; i++) {
+			int top = 0;
+			stack[top++] = list[i];
+			while (top > 0) {
+				int item = stack[--top];
+				if (left[item] < 0) {
+					lengths[-1 - left[item]]++;
+				} else {
+					stack[top++] = left[item];
+					stack[top++] = right[item];
+				}
+			}
+		}
+		return lengths;
+	}
+
+	/**
+	 * Computes unrestricted Huffman code lengths in place, in linear time, by the
+	 * method of Moffat and Katajainen: the weights array is reused first for the
+	 * internal nodes' weights and parent pointers, then for their depths, and
+	 * finally for the leaves' depths.
+	 * 
+	 * @param sorted (frequency, symbol) pairs packed in longs, lightest first,
+	 *               at least 2 of them
+	 * @return The code length of each pair, in the same order (so non-increasing)
+	 */
+	private static long[] huffmanLengths(long[] sorted) {
+		int n = sorted.length;
+		long[] a = new long[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = sorted[i] >>> 32;
+		}
+
+		// Build the tree: internal node i's weight, then its parent's index
+		a[0] += a[1];
+		int root = 0, leaf = 2;
+		for (int next = 1; next < n - 1; next++) {
+			if (leaf >= n || a[root] < a[leaf]) {
+				a[next] = a[root];
+				a[root++] = next;
+			} else {
+				a[next] = a[leaf++];
+			}
+			if (leaf >= n || (root < next && a[root] < a[leaf])) {
+				a[next] += a[root];
+				a[root++] = next;
+			} else {
+				a[next] += a[leaf++];
+			}
+		}
+
+		// Depth of each internal node, from the root down
+		a[n - 2] = 0;
+		for (int next = n - 3; next >= 0; next--) {
+			a[next] = a[(int) a[next]] + 1;
+		}
+
+		// Depth of each leaf, deepest first
+		int available = 1, used = 0, depth = 0, next = n - 1;
+		root = n - 2;
+		while (available > 0) {
+			while (root >= 0 && a[root] == depth) {
+				used++;
+				root--;
+			}
+			while (available > used) {
+				a[next--] = depth;
+				available--;
+			}
+			available = 2 * used;
+			depth++;
+			used = 0;
+		}
+		return a;
+	}
+
+}
@@ -0,0 +1,83 @@
+package huffman;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128-style variable-length integers: 7 bits per byte, least significant
+ * group first, with the high bit set on every byte but the last. Only
+ * non-negative longs are written, so a varint read back that would set the
+ * sign bit (or need more than 10 bytes) is rejected as malformed.
+ */
+final class Varint {
+
+	private Varint() {
+	}
+
+	static void write(OutputStream out, long value) throws IOException {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative varint: " + value);
+		}
+		while (value >= 0x80) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	static long read(InputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Truncated varint");
+			}
+			if (shift == 63 && b != 0) {
+				throw new IOException("Malformed varint");
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if (b < 0x80) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/**
+	 * Reads a varint from the buffer's position, advancing it past the varint.
+	 */
+	static long read(ByteBuffer in) {
+		long value = 0;
+		try {
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = in.get() & 0xFF;
+				if (shift == 63 && b != 0) {
+					break;
+				}
+				value |= (long) (b & 0x7F) << shift;
+				if (b < 0x80) {
+					return value;
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Truncated varint");
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	/**
+	 * Reads a varint that must fit in a non-negative int
+	 */
+	static int readInt(InputStream in) throws IOException {
+		long value = read(in);
+		if (value > Integer.MAX_VALUE) {
+			throw new IOException("Varint out of range: " + value);
+		}
+		return (int) value;
+	}
+
+}
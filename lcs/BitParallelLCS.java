@@ -0,0 +1,216 @@
+package lcs;
+
+import java.util.Arrays;
+
+/**
+ * Bit-parallel LCS length (Allison & Dix; Crochemore et al.; Hyyro): a whole
+ * row of the LCS table is encoded as a bit vector V over the positions of the
+ * column sequence, where a 0 bit marks a column at which the row's LCS length
+ * steps up by one. With M the mask of the columns matching the row's symbol,
+ * each row is computed from the previous one as
+ *
+ * V' = (V + (V & M)) | (V & ~M)
+ *
+ * so 64 cells are processed per machine word, with the addition's carry
+ * propagated from word to word for sequences longer than 64. The LCS length is
+ * the number of 0 bits in the final V. Time is O(m * n / 64), memory O(n / 64)
+ * per distinct symbol of the column sequence.
+ */
+public final class BitParallelLCS {
+
+	// Largest number of mask words kept for the column sequence's symbols, beyond
+	// which each row's mask is instead scattered from the symbol's positions
+	private static final int MAX_DENSE_MASK_WORDS = 1 << 22;
+
+	// Widest range of symbol values numbered through an array indexed by value
+	// (enough for any chars); sparser alphabets go through a hash table
+	private static final int MAX_INDEXED_RANGE = Character.MAX_VALUE + 1;
+
+	private BitParallelLCS() {
+	}
+
+	/**
+	 * @param rStr The String found along the table's rows
+	 * @param cStr The String found along the table's cols
+	 * @return The length of the LCS of rStr and cStr
+	 */
+	public static int length(String rStr, String cStr) {
+		return length(LCS.symbols(rStr), LCS.symbols(cStr));
+	}
+
+	/**
+	 * @return The length of the LCS of two int sequences (e.g., lines or tokens
+	 *         interned by a SymbolInterner)
+	 */
+	public static int length(int[] a, int[] b) {
+		// The shorter sequence becomes the bit vector
+		if (a.length < b.length) {
+			int[] swap = a;
+			a = b;
+			b = swap;
+		}
+		int n = b.length, words = (n + 63) >>> 6;
+		if (n == 0) {
+			return 0;
+		}
+
+		// Number the column sequence's distinct symbols densely, and the row
+		// sequence's with them (-1 for symbols that never match)
+		int[] aIndex = new int[a.length], bIndex = new int[n];
+		int symbols = number(a, b, aIndex, bIndex);
+		long maskWords = (long) symbols * words;
+		return maskWords <= MAX_DENSE_MASK_WORDS ? denseLength(aIndex, bIndex, symbols, words)
+				: sparseLength(aIndex, bIndex, symbols, words);
+	}
+
+	/**
+	 * Numbers b's distinct symbols from 0 in order of first appearance, through
+	 * an array indexed by symbol value when b's values span a narrow enough range
+	 * (as chars and interned ids do), or an open-addressed table of primitive
+	 * keys when they don't.
+	 * 
+	 * @param aIndex Filled with the number of each symbol of a, -1 if not in b
+	 * @param bIndex Filled with the number of each symbol of b
+	 * @return The number of distinct symbols in b
+	 */
+	static int number(int[] a, int[] b, int[] aIndex, int[] bIndex) {
+		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		for (int symbol : b) {
+			min = Math.min(min, symbol);
+			max = Math.max(max, symbol);
+		}
+		long range = (long) max - min + 1;
+		int symbols = 0;
+
+		if (range <= Math.max(MAX_INDEXED_RANGE, 4L * b.length)) {
+			// (number + 1) of each value from min, 0 for values not in b
+			int[] numbers = new int[(int) range];
+			for (int j = 0; j < b.length; j++) {
+				int value = b[j] - min;
+				if (numbers[value] == 0) {
+					numbers[value] = ++symbols;
+				}
+				bIndex[j] = numbers[value] - 1;
+			}
+			for (int i = 0; i < a.length; i++) {
+				long value = (long) a[i] - min;
+				aIndex[i] = value >= 0 && value < range ? numbers[(int) value] - 1 : -1;
+			}
+			return symbols;
+		}
+
+		// Open-addressed table of b's symbols and their (number + 1), 0 for an
+		// empty slot, at most half full
+		int capacity = Integer.highestOneBit(b.length) << 2, mask = capacity - 1;
+		int[] keys = new int[capacity], numbers = new int[capacity];
+		for (int j = 0; j < b.length; j++) {
+			int slot = slot(keys, numbers, mask, b[j]);
+			if (numbers[slot] == 0) {
+				keys[slot] = b[j];
+				numbers[slot] = ++symbols;
+			}
+			bIndex[j] = numbers[slot] - 1;
+		}
+		for (int i = 0; i < a.length; i++) {
+			aIndex[i] = numbers[slot(keys, numbers, mask, a[i])] - 1;
+		}
+		return symbols;
+	}
+
+	/**
+	 * @return The slot of the given symbol in the table, or the empty slot where
+	 *         it would go
+	 */
+	private static int slot(int[] keys, int[] numbers, int mask, int symbol) {
+		int hash = symbol * 0x9E3779B9;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (numbers[slot] != 0 && keys[slot] != symbol) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Computes the length with a precomputed mask per symbol, the fastest option
+	 * when the masks fit comfortably in memory.
+	 */
+	static int denseLength(int[] a, int[] b, int symbols, int words) {
+		long[] masks = new long[symbols * words];
+		for (int j = 0; j < b.length; j++) {
+			masks[b[j] * words + (j >>> 6)] |= 1L << j;
+		}
+		long[] v = new long[words];
+		Arrays.fill(v, -1L);
+		for (int symbol : a) {
+			if (symbol >= 0) {
+				step(v, masks, symbol * words, words);
+			}
+		}
+		return b.length - ones(v, b.length);
+	}
+
+	/**
+	 * Computes the length with a single mask, rebuilt for each row from the
+	 * positions of its symbol: slower per row, but O(n) memory for any alphabet.
+	 */
+	static int sparseLength(int[] a, int[] b, int symbols, int words) {
+		// Positions of each symbol in b, grouped by symbol
+		int[] start = new int[symbols + 1];
+		for (int symbol : b) {
+			start[symbol + 1]++;
+		}
+		for (int s = 0; s < symbols; s++) {
+			start[s + 1] += start[s];
+		}
+		int[] positions = new int[b.length], fill = Arrays.copyOf(start, symbols);
+		for (int j = 0; j < b.length; j++) {
+			positions[fill[b[j]]++] = j;
+		}
+
+		long[] mask = new long[words], v = new long[words];
+		Arrays.fill(v, -1L);
+		for (int symbol : a) {
+			if (symbol < 0) {
+				continue;
+			}
+			for (int p = start[symbol]; p < start[symbol + 1]; p++) {
+				mask[positions[p] >>> 6] |= 1L << positions[p];
+			}
+			step(v, mask, 0, words);
+			for (int p = start[symbol]; p < start[symbol + 1]; p++) {
+				mask[positions[p] >>> 6] = 0;
+			}
+		}
+		return b.length - ones(v, b.length);
+	}
+
+	/**
+	 * Advances V by one row, given the row symbol's mask at masks[offset, offset +
+	 * words). The carry out of each word's addition is the top bit of the
+	 * majority of its operands' top bits and the inverted sum.
+	 */
+	static void step(long[] v, long[] masks, int offset, int words) {
+		long carry = 0;
+		for (int w = 0; w < words; w++) {
+			long x = v[w], m = masks[offset + w], u = x & m;
+			long sum = x + u + carry;
+			carry = ((x & u) | ((x | u) & ~sum)) >>> 63;
+			v[w] = sum | (x & ~m);
+		}
+	}
+
+	/**
+	 * @return Number of 1 bits among the first n bits of v
+	 */
+	static int ones(long[] v, int n) {
+		int count = 0, full = n >>> 6;
+		for (int w = 0; w < full; w++) {
+			count += Long.bitCount(v[w]);
+		}
+		if ((n & 63) != 0) {
+			count += Long.bitCount(v[full] & ((1L << n) - 1));
+		}
+		return count;
+	}
+
+}
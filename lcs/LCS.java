@@ -1,7 +1,12 @@
 package lcs;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class LCS {
 
@@ -19,7 +24,7 @@ public class LCS {
 	// SHARED HELPER METHODS!
 	
 	/**
-	 * The collectSolution method is used to recurse through the table to find the 
+	 * The collectSolution method is used to walk through the table to find every
 	 * LCS for the strings checking.
 	 * 
 	 * @param rStr	The String found along the table's rows
@@ -30,48 +35,220 @@ public class LCS {
 	 * @return A set of solutions for the table and parameters provided. 
 	 */
 	private static Set<String> collectSolution(String rStr, int r, String cStr, int c, int[][] memo) {
-		// Base Case
-		if (r == 0 || c == 0) {
-			Set<String> soln = new HashSet<String>();
-			soln.add("");
-			return soln;
-		}
+		return collectSolution(rStr, r, cStr, c, memo, Integer.MAX_VALUE);
+	}
 
-		// Recursive Case: Matched Letter
+	/**
+	 * Walks the DAG of table cells that lie on optimal alignments ending at [r,
+	 * c], without recursion: cells, keyed by row * cols + col, are visited in
+	 * post-order off an explicit stack of ints, and each cell's set of solutions
+	 * is computed once and shared by every cell that leads to it. Solutions are
+	 * never copied along the way: each is a node of a SolutionTree holding its
+	 * last char and the solution it extends, so a cell's set is an array of node
+	 * ids, and Strings are only built for the solutions at [r, c]. A cell with a
+	 * single predecessor on the DAG reuses that predecessor's set as is. At most
+	 * limit solutions are kept per cell, which still leaves min(limit, all
+	 * solutions) at [r, c].
+	 * 
+	 * @param rStr	The String found along the table's rows
+	 * @param r		The index of the row string in the table		   
+	 * @param cStr	The String found along the table's cols
+	 * @param c		The index of the col string in the table
+	 * @param memo 	The table we are finding the LCS for
+	 * @param limit	The most solutions to return
+	 * @return A set of at most limit distinct solutions for the table and
+	 *         parameters provided. 
+	 */
+	private static Set<String> collectSolution(String rStr, int r, String cStr, int c, int[][] memo, int limit) {
+		int cols = cStr.length();
+		SolutionTree tree = new SolutionTree();
+		// Sorted node ids of the solutions of each finished cell
+		int[][] solutions = new int[Math.multiplyExact(r, cols) + c + 1][];
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = r * cols + c;
+		while (top > 0) {
+			int cell = stack[top - 1];
+			if (solutions[cell] != null) {
+				top--;
+				continue;
+			}
+			int row = cell / cols, col = cell % cols;
+
+			// Base Case
+			if (row == 0 || col == 0) {
+				solutions[cell] = SolutionTree.EMPTY;
+				top--;
+				continue;
+			}
 
-		System.out.println(r);
-		System.out.println(c);
+			// Matched Letter: every solution of the diagonal, extended
+			if (rStr.charAt(row) == cStr.charAt(col)) {
+				int[] previous = solutions[cell - cols - 1];
+				if (previous == null) {
+					stack = push(stack, top++, cell - cols - 1);
+					continue;
+				}
+				solutions[cell] = tree.extend(previous, rStr.charAt(row));
+				top--;
+				continue;
+			}
 
-		if (rStr.charAt(r) == cStr.charAt(c)) {
-			return updatedLCS(rStr.charAt(r), collectSolution(rStr, r - 1, cStr, c - 1, memo));
+			// Mismatched Letters: the solutions of whichever neighbours are optimal
+			boolean left = memo[row][col - 1] >= memo[row - 1][col], up = memo[row][col - 1] <= memo[row - 1][col];
+			int[] leftLCS = left ? solutions[cell - 1] : null, upLCS = up ? solutions[cell - cols] : null;
+			if ((left && leftLCS == null) || (up && upLCS == null)) {
+				if (left && leftLCS == null) {
+					stack = push(stack, top++, cell - 1);
+				}
+				if (up && upLCS == null) {
+					stack = push(stack, top++, cell - cols);
+				}
+				continue;
+			}
+			if (!up) {
+				solutions[cell] = leftLCS;
+			} else if (!left) {
+				solutions[cell] = upLCS;
+			} else {
+				solutions[cell] = union(leftLCS, upLCS, limit);
+			}
+			top--;
 		}
+		return tree.strings(solutions[r * cols + c]);
+	}
 
-		// Recursive case: Mismatched Letters
-		Set<String> newLCS = new HashSet<>();
-		if (memo[r][c - 1] >= memo[r - 1][c]) {
-			newLCS.addAll(collectSolution(rStr, r, cStr, c - 1, memo));
+	/**
+	 * @return The stack with the cell pushed at index top, grown if full
+	 */
+	private static int[] push(int[] stack, int top, int cell) {
+		if (top == stack.length) {
+			stack = Arrays.copyOf(stack, top * 2);
 		}
-		if (memo[r][c - 1] <= memo[r - 1][c]) {
-			newLCS.addAll(collectSolution(rStr, r - 1, cStr, c, memo));
+		stack[top] = cell;
+		return stack;
+	}
+
+	/**
+	 * Merges two sorted sets of node ids, keeping at most limit of them.
+	 */
+	private static int[] union(int[] a, int[] b, int limit) {
+		int[] merged = new int[(int) Math.min(limit, (long) a.length + b.length)];
+		int i = 0, j = 0, size = 0;
+		while (size < merged.length && (i < a.length || j < b.length)) {
+			int next;
+			if (j == b.length || (i < a.length && a[i] < b[j])) {
+				next = a[i++];
+			} else if (i == a.length || b[j] < a[i]) {
+				next = b[j++];
+			} else {
+				next = a[i++];
+				j++;
+			}
+			merged[size++] = next;
 		}
-		return newLCS;
+		return size == merged.length ? merged : Arrays.copyOf(merged, size);
 	}
 
 	/**
-	 * UpdatedLCS takes the previous set of strings and adds a new character. We employ this 
-	 * method to append the new character to the existing set of strings. 
-	 * 
-	 * @param adding	The character from the substring that we are adding to the set
-	 * @param LCS  		The already existing set of strings that contains result
-	 * @return			The modified set of strings that includes the new character. 
+	 * Solutions shared between the cells of collectSolution, as the nodes of a
+	 * tree: node 0 is the empty solution, and every other node is the solution
+	 * parent[node] followed by the char symbol[node]. Nodes are interned by
+	 * (parent, symbol), so equal solutions are always the same node, and sets of
+	 * solutions can be merged and deduplicated as sets of int ids.
 	 */
-	private static Set<String> updatedLCS(char adding, Set<String> LCS) {
-		Set<String> copyLCS = new HashSet<String>();
+	private static final class SolutionTree {
+
+		static final int[] EMPTY = { 0 };
+
+		private int[] parent = new int[64];
+		private char[] symbol = new char[64];
+		private int size = 1;
+
+		// Open-addressed table of (parent << 16 | symbol) keys and their (node +
+		// 1), 0 for an empty slot, kept at most half full
+		private long[] keys = new long[128];
+		private int[] nodes = new int[128];
+
+		/**
+		 * @return The sorted ids of the given solutions, each followed by c
+		 */
+		int[] extend(int[] solutions, char c) {
+			int[] extended = new int[solutions.length];
+			for (int i = 0; i < solutions.length; i++) {
+				extended[i] = child(solutions[i], c);
+			}
+			Arrays.sort(extended);
+			return extended;
+		}
 
-		for (String LC : LCS) {
-			copyLCS.add(LC + Character.toString(adding));
+		/**
+		 * @return The Strings of the given solutions
+		 */
+		Set<String> strings(int[] solutions) {
+			Set<String> strings = new HashSet<>();
+			for (int node : solutions) {
+				int length = 0;
+				for (int n = node; n != 0; n = parent[n]) {
+					length++;
+				}
+				char[] chars = new char[length];
+				for (int n = node; n != 0; n = parent[n]) {
+					chars[--length] = symbol[n];
+				}
+				strings.add(new String(chars));
+			}
+			return strings;
+		}
+
+		private int child(int node, char c) {
+			long key = ((long) node << 16) | c;
+			int slot = slot(keys, nodes, key);
+			if (nodes[slot] != 0) {
+				return nodes[slot] - 1;
+			}
+			if (size == parent.length) {
+				parent = Arrays.copyOf(parent, size * 2);
+				symbol = Arrays.copyOf(symbol, size * 2);
+			}
+			int child = size++;
+			parent[child] = node;
+			symbol[child] = c;
+			keys[slot] = key;
+			nodes[slot] = child + 1;
+			if (2 * size > keys.length) {
+				rehash();
+			}
+			return child;
+		}
+
+		private void rehash() {
+			long[] oldKeys = keys;
+			int[] oldNodes = nodes;
+			keys = new long[oldKeys.length * 2];
+			nodes = new int[oldNodes.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldNodes[i] != 0) {
+					int slot = slot(keys, nodes, oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					nodes[slot] = oldNodes[i];
+				}
+			}
+		}
+
+		/**
+		 * @return The slot of the key in the table, or the empty slot where it
+		 *         would go
+		 */
+		private static int slot(long[] keys, int[] nodes, long key) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			int mask = keys.length - 1, slot = (int) (hash >>> 32) & mask;
+			while (nodes[slot] != 0 && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
 		}
-		return copyLCS;
+
 	}
 
 	// -----------------------------------------------
@@ -95,6 +272,27 @@ public class LCS {
 		return collectSolution(rStr, rStr.length() - 1, cStr, cStr.length() - 1, memoCheck);
 	}
 
+	/**
+	 * Bottom-up dynamic programming approach to the LCS problem that returns no
+	 * more than the given number of solutions, for inputs with too many optimal
+	 * alignments to list them all.
+	 * 
+	 * @param rStr  The String found along the table's rows
+	 * @param cStr  The String found along the table's cols
+	 * @param limit The most solutions to return, at least 1
+	 * @return min(limit, all) distinct longest common subsequences between rStr
+	 *         and cStr + [Side Effect] sets memoCheck to refer to table
+	 */
+	public static Set<String> bottomUpLCS(String rStr, String cStr, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Solution limit must be positive: " + limit);
+		}
+		rStr = "0" + rStr;
+		cStr = "0" + cStr;
+		memoCheck = bottomUpTableFill(rStr, cStr, memoCheck);
+		return collectSolution(rStr, rStr.length() - 1, cStr, cStr.length() - 1, memoCheck, limit);
+	}
+
 	// BOTTOM-UP HELPER METHODS!
 	
 	/**
@@ -134,14 +332,106 @@ public class LCS {
 		return memo;
 	}
 
+	// -----------------------------------------------
+	// Parallel Bottom-Up LCS
+	// -----------------------------------------------
+
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	/**
+	 * Bottom-up dynamic programming approach to the LCS problem with the table
+	 * filled in parallel on the given pool. Cells on an anti-diagonal don't
+	 * depend on one another, so the table is cut into square tiles, and the tiles
+	 * along each anti-diagonal of tiles are filled concurrently once the
+	 * diagonal before them is done. Produces exactly the table bottomUpLCS does.
+	 * 
+	 * Scaling with the number of workers is unverified: LCSBenchmark has only
+	 * been run on a single core, where extra workers add nothing but scheduling
+	 * overhead. Run it on the target machine before relying on this over
+	 * bottomUpLCS.
+	 * 
+	 * @param rStr The String found along the table's rows
+	 * @param cStr The String found along the table's cols
+	 * @param pool ForkJoinPool to fill the tiles on
+	 * @return The longest common subsequence between rStr and cStr + [Side Effect]
+	 *         sets memoCheck to refer to table
+	 */
+	public static Set<String> parallelBottomUpLCS(String rStr, String cStr, ForkJoinPool pool) {
+		rStr = "0" + rStr;
+		cStr = "0" + cStr;
+		memoCheck = parallelTableFill(rStr, cStr, DEFAULT_TILE_SIZE, pool);
+		return collectSolution(rStr, rStr.length() - 1, cStr, cStr.length() - 1, memoCheck);
+	}
+
+	// PARALLEL BOTTOM-UP HELPER METHODS!
+
+	/**
+	 * Fills the same table as bottomUpTableFill, a wavefront of tiles at a time.
+	 * 
+	 * @param rStr     The String found along the table's rows, sentinel included
+	 * @param cStr     The String found along the table's cols, sentinel included
+	 * @param tileSize Number of rows and cols per tile
+	 * @param pool     ForkJoinPool to fill the tiles on
+	 * @return A complete table filled with values related to the length of LCS.
+	 */
+	static int[][] parallelTableFill(String rStr, String cStr, int tileSize, ForkJoinPool pool) {
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+		}
+		int[] r = symbols(rStr), c = symbols(cStr);
+		int[][] memo = new int[r.length][c.length];
+		int tileRows = (r.length + tileSize - 1) / tileSize, tileCols = (c.length + tileSize - 1) / tileSize;
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				List<RecursiveAction> wavefront = new ArrayList<>();
+				for (int diagonal = 0; diagonal < tileRows + tileCols - 1; diagonal++) {
+					wavefront.clear();
+					for (int tr = Math.max(0, diagonal - tileCols + 1); tr <= Math.min(diagonal, tileRows - 1); tr++) {
+						int row = tr * tileSize, col = (diagonal - tr) * tileSize;
+						wavefront.add(new RecursiveAction() {
+							private static final long serialVersionUID = 1L;
+
+							@Override
+							protected void compute() {
+								fillTile(r, c, memo, row, Math.min(r.length, row + tileSize), col,
+										Math.min(c.length, col + tileSize));
+							}
+						});
+					}
+					invokeAll(wavefront);
+				}
+			}
+		});
+		return memo;
+	}
+
+	/**
+	 * Fills rows [rowFrom, rowTo) and cols [colFrom, colTo) of the table, whose
+	 * cells above and to the left must already be filled. Row 0 and col 0 are
+	 * left as 0s: the sentinels never match.
+	 */
+	private static void fillTile(int[] r, int[] c, int[][] memo, int rowFrom, int rowTo, int colFrom, int colTo) {
+		for (int row = Math.max(1, rowFrom); row < rowTo; row++) {
+			int[] current = memo[row], above = memo[row - 1];
+			int symbol = r[row];
+			for (int col = Math.max(1, colFrom); col < colTo; col++) {
+				current[col] = symbol == c[col] ? above[col - 1] + 1 : Math.max(above[col], current[col - 1]);
+			}
+		}
+	}
+
 	// -----------------------------------------------
 	// Top-Down LCS
 	// -----------------------------------------------
 
 	/**
 	 * Top-down dynamic programming approach to the LCS problem, which solves
-	 * smaller and smaller subproblems recursively using a tabular memoization
-	 * structure.
+	 * smaller and smaller subproblems on demand using a tabular memoization
+	 * structure. Only the cells the answer depends on are computed; the rest of
+	 * memoCheck is left 0.
 	 * 
 	 * @param rStr The String found along the table's rows
 	 * @param cStr The String found along the table's cols
@@ -151,46 +441,541 @@ public class LCS {
 	public static Set<String> topDownLCS(String rStr, String cStr) {
 		rStr = "0" + rStr;
 		cStr = "0" + cStr;
-		boolean[][] haveVisited = new boolean[rStr.length()][cStr.length()];
 		memoCheck = new int[rStr.length()][cStr.length()];
-		topDownTableFill(rStr, rStr.length() - 1, cStr, cStr.length() - 1, memoCheck, haveVisited);
+		topDownTableFill(rStr, cStr, memoCheck);
 		return collectSolution(rStr, rStr.length() - 1, cStr, cStr.length() - 1, memoCheck);
 
 	}
 
 	// TOP-DOWN HELPER METHODS!
 
+	// Marks cells of the top-down table that haven't been computed yet
+	private static final int UNVISITED = -1;
+
 	/**
-	 * TopDownTableFill fills in the table with values using a 
-	 * recursive algorithm with memoization.
+	 * TopDownTableFill fills in the table with values using the recurrence,
+	 * starting from the bottom-right cell and computing each cell only once the
+	 * cells it needs are known. Demanded cells wait on an explicit stack rather
+	 * than the call stack, so any input size works, and uncomputed cells are told
+	 * apart by the UNVISITED sentinel in the table itself.
 	 * 
 	 * @param rStr 		The String found along the table's rows
-	 * @param rIndex	The index of the current row
 	 * @param cStr   	The String found along the table's cols
-	 * @param cIndex 	The index of the current col
-	 * @param memo		The table that we are filling in 
-	 * @param visited	A table of the visited values, aids in memoization
-	 * @return The integer value at the current rIndex and cIndex. 
+	 * @param memo		The table that we are filling in, all 0s
+	 * @return The integer value at the bottom-right cell.
 	 */
-	private static int topDownTableFill(String rStr, int rIndex, String cStr, int cIndex, int[][] memo,
-			boolean[][] visited) {
-
-		if (rIndex == 0 || cIndex == 0) {
-			memo[rIndex][cIndex] = 0;
+	private static int topDownTableFill(String rStr, String cStr, int[][] memo) {
+		int rows = rStr.length(), cols = cStr.length();
+		if (rows == 1 || cols == 1) {
 			return 0;
 		}
-		// exception happening because the string length is 0
-		if (visited[rIndex][cIndex] != true) {
-			if (rStr.charAt(rIndex) == cStr.charAt(cIndex)) {
-				memo[rIndex][cIndex] = topDownTableFill(rStr, rIndex - 1, cStr, cIndex - 1, memo, visited) + 1;
+		// Row 0 and col 0 are 0 whether or not they're demanded
+		for (int row = 1; row < rows; row++) {
+			Arrays.fill(memo[row], 1, cols, UNVISITED);
+		}
+		int[] r = symbols(rStr), c = symbols(cStr);
 
+		// Pending cells, packed as row * cols + col
+		long[] stack = new long[64];
+		int top = 0;
+		stack[top++] = (long) (rows - 1) * cols + cols - 1;
+		while (top > 0) {
+			long cell = stack[top - 1];
+			int row = (int) (cell / cols), col = (int) (cell % cols);
+			if (memo[row][col] != UNVISITED) {
+				top--;
+				continue;
+			}
+			if (top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			if (r[row] == c[col]) {
+				int diagonal = memo[row - 1][col - 1];
+				if (diagonal == UNVISITED) {
+					stack[top++] = cell - cols - 1;
+				} else {
+					memo[row][col] = diagonal + 1;
+					top--;
+				}
 			} else {
-				memo[rIndex][cIndex] = Math.max(topDownTableFill(rStr, rIndex - 1, cStr, cIndex, memo, visited),
-						topDownTableFill(rStr, rIndex, cStr, cIndex - 1, memo, visited));
+				int up = memo[row - 1][col], left = memo[row][col - 1];
+				if (up == UNVISITED) {
+					stack[top++] = cell - cols;
+				}
+				if (left == UNVISITED) {
+					stack[top++] = cell - 1;
+				}
+				if (up != UNVISITED && left != UNVISITED) {
+					memo[row][col] = Math.max(up, left);
+					top--;
+				}
+			}
+		}
+
+		for (int row = 1; row < rows; row++) {
+			int[] current = memo[row];
+			for (int col = 1; col < cols; col++) {
+				if (current[col] == UNVISITED) {
+					current[col] = 0;
+				}
+			}
+		}
+		return memo[rows - 1][cols - 1];
+	}
+
+	// -----------------------------------------------
+	// Linear-Space LCS Length
+	// -----------------------------------------------
+
+	// Chars of the longer string copied per call of the rolling-row kernel
+	private static final int CHUNK_CHARS = 1 << 10;
+
+	/**
+	 * Length of the longest common subsequence of the two strings, computed
+	 * bottom-up in O(mn) time but only O(min(m, n)) memory: a single row of the
+	 * table plus the diagonal cell, held in a primitive array. The shorter string
+	 * runs along the row and is copied once to an int sequence for the kernel
+	 * shared with lcsLength(int[], int[]); the longer one is only ever copied
+	 * CHUNK_CHARS chars at a time. Does not touch memoCheck.
+	 * 
+	 * @param rStr The String found along the table's rows
+	 * @param cStr The String found along the table's cols
+	 * @return The length of the LCS of rStr and cStr
+	 */
+	public static int lcsLength(String rStr, String cStr) {
+		return lcsLength(rStr, cStr, false);
+	}
+
+	/**
+	 * Length of the longest common subsequence of the two strings, optionally
+	 * also filling the full table as bottomUpLCS does.
+	 * 
+	 * @param rStr          The String found along the table's rows
+	 * @param cStr          The String found along the table's cols
+	 * @param fillMemoCheck Whether to set memoCheck to the full table (which takes
+	 *                      O(mn) memory) rather than computing the length alone
+	 * @return The length of the LCS of rStr and cStr
+	 */
+	public static int lcsLength(String rStr, String cStr, boolean fillMemoCheck) {
+		if (fillMemoCheck) {
+			memoCheck = bottomUpTableFill("0" + rStr, "0" + cStr, memoCheck);
+			return memoCheck[rStr.length()][cStr.length()];
+		}
+		// LCS length is symmetric, so the strings may swap roles
+		String longer = rStr.length() < cStr.length() ? cStr : rStr;
+		int[] b = symbols(longer == rStr ? cStr : rStr);
+		int[] row = new int[b.length + 1];
+		int[] chunk = new int[Math.min(longer.length(), CHUNK_CHARS)];
+		for (int from = 0; from < longer.length(); from += chunk.length) {
+			int to = Math.min(longer.length(), from + chunk.length);
+			symbols(longer, from, to, chunk);
+			extendRow(chunk, 0, to - from, b, 0, b.length, false, row);
+		}
+		return row[b.length];
+	}
+
+	/**
+	 * Length of the longest common subsequence of two int sequences (e.g., lines
+	 * or tokens interned by a SymbolInterner), in O(min(m, n)) memory.
+	 * 
+	 * @param r The sequence found along the table's rows
+	 * @param c The sequence found along the table's cols
+	 * @return The length of the LCS of r and c
+	 */
+	public static int lcsLength(int[] r, int[] c) {
+		// The shorter sequence runs along the row
+		int[] row = r.length < c.length ? lcsRow(c, 0, c.length, r, 0, r.length, false, null)
+				: lcsRow(r, 0, r.length, c, 0, c.length, false, null);
+		return row[row.length - 1];
+	}
+
+	// LINEAR-SPACE HELPER METHODS!
+
+	/**
+	 * @return The chars of the String as an int sequence, for the kernels below
+	 */
+	static int[] symbols(String str) {
+		int[] symbols = new int[str.length()];
+		symbols(str, 0, symbols.length, symbols);
+		return symbols;
+	}
+
+	/**
+	 * Copies the chars in [from, to) of the String to the start of the given
+	 * array, as ints.
+	 */
+	static void symbols(String str, int from, int to, int[] symbols) {
+		for (int i = from; i < to; i++) {
+			symbols[i - from] = str.charAt(i);
+		}
+	}
+
+	/**
+	 * @return The String of the chars in the int sequence
+	 */
+	static String string(int[] symbols) {
+		StringBuilder sb = new StringBuilder(symbols.length);
+		for (int symbol : symbols) {
+			sb.append((char) symbol);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Rolling-row LCS kernel: computes the last row of the LCS table of a[aFrom,
+	 * aTo) (along the rows) against b[bFrom, bTo) (along the cols), keeping only
+	 * that one row and the diagonal cell above-left of the current one.
+	 * 
+	 * @param reverse Whether to compare the ranges back to front, so that row[j]
+	 *                is the LCS length of the a range against the last j symbols
+	 *                of the b range, rather than the first j
+	 * @param row     Array of at least bTo - bFrom + 1 ints to reuse, or null
+	 * @return row, with row[j] the LCS length of the a range against j symbols of
+	 *         the b range, for j in [0, bTo - bFrom]
+	 */
+	static int[] lcsRow(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, boolean reverse, int[] row) {
+		int n = bTo - bFrom;
+		if (row == null || row.length < n + 1) {
+			row = new int[n + 1];
+		}
+		Arrays.fill(row, 0, n + 1, 0);
+		extendRow(a, aFrom, aTo, b, bFrom, bTo, reverse, row);
+		return row;
+	}
+
+	/**
+	 * Advances a row of the table produced by lcsRow past the further rows
+	 * a[aFrom, aTo), so that a long a range can be fed to the kernel a piece at a
+	 * time. In reverse, the pieces are fed back to front.
+	 */
+	static void extendRow(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, boolean reverse, int[] row) {
+		int n = bTo - bFrom;
+		if (reverse) {
+			for (int i = aTo - 1; i >= aFrom; i--) {
+				int symbol = a[i], diagonal = 0, left = 0;
+				for (int j = 1; j <= n; j++) {
+					int up = row[j];
+					left = symbol == b[bTo - j] ? diagonal + 1 : Math.max(up, left);
+					row[j] = left;
+					diagonal = up;
+				}
+			}
+		} else {
+			for (int i = aFrom; i < aTo; i++) {
+				int symbol = a[i], diagonal = 0, left = 0;
+				for (int j = 1; j <= n; j++) {
+					int up = row[j];
+					left = symbol == b[bFrom + j - 1] ? diagonal + 1 : Math.max(up, left);
+					row[j] = left;
+					diagonal = up;
+				}
+			}
+		}
+	}
 
+	// -----------------------------------------------
+	// Hirschberg LCS
+	// -----------------------------------------------
+
+	/**
+	 * Finds one longest common subsequence of the two strings in O(mn) time and
+	 * O(m + n) space, by Hirschberg's divide and conquer: the rolling-row kernel
+	 * is run forwards over the top half of rStr and backwards over the bottom
+	 * half, the column where their sums peak splits cStr, and each half is solved
+	 * the same way. Does not touch memoCheck.
+	 * 
+	 * @param rStr The String found along the table's rows
+	 * @param cStr The String found along the table's cols
+	 * @return A longest common subsequence of rStr and cStr
+	 */
+	public static String hirschbergLCS(String rStr, String cStr) {
+		return string(hirschbergLCS(symbols(rStr), symbols(cStr)));
+	}
+
+	/**
+	 * Finds one longest common subsequence of two int sequences by Hirschberg's
+	 * divide and conquer, in O(m + n) space.
+	 * 
+	 * @param a The sequence found along the table's rows
+	 * @param b The sequence found along the table's cols
+	 * @return A longest common subsequence of a and b
+	 */
+	public static int[] hirschbergLCS(int[] a, int[] b) {
+		// The shorter sequence is split, so the rows are as short as possible
+		if (a.length < b.length) {
+			int[] swap = a;
+			a = b;
+			b = swap;
+		}
+		int[] lcs = new int[b.length];
+		int[] forward = new int[b.length + 1], backward = new int[b.length + 1];
+		int length = hirschberg(a, 0, a.length, b, 0, b.length, forward, backward, lcs, 0);
+		return Arrays.copyOf(lcs, length);
+	}
+
+	// HIRSCHBERG HELPER METHODS!
+
+	/**
+	 * Writes a longest common subsequence of a[aFrom, aTo) and b[bFrom, bTo) into
+	 * lcs, starting at index at. Recurses only O(log(aTo - aFrom)) deep.
+	 * 
+	 * @param forward  Scratch row of at least bTo - bFrom + 1 ints
+	 * @param backward Scratch row of at least bTo - bFrom + 1 ints
+	 * @return The index in lcs just past what was written
+	 */
+	private static int hirschberg(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] forward,
+			int[] backward, int[] lcs, int at) {
+		if (aFrom == aTo || bFrom == bTo) {
+			return at;
+		}
+		if (aTo - aFrom == 1) {
+			for (int j = bFrom; j < bTo; j++) {
+				if (b[j] == a[aFrom]) {
+					lcs[at++] = a[aFrom];
+					break;
+				}
 			}
-			visited[rIndex][cIndex] = true;
+			return at;
+		}
+
+		int mid = (aFrom + aTo) >>> 1, n = bTo - bFrom;
+		lcsRow(a, aFrom, mid, b, bFrom, bTo, false, forward);
+		lcsRow(a, mid, aTo, b, bFrom, bTo, true, backward);
+		int split = 0, best = -1;
+		for (int k = 0; k <= n; k++) {
+			int total = forward[k] + backward[n - k];
+			if (total > best) {
+				best = total;
+				split = k;
+			}
+		}
+		at = hirschberg(a, aFrom, mid, b, bFrom, bFrom + split, forward, backward, lcs, at);
+		return hirschberg(a, mid, aTo, b, bFrom + split, bTo, forward, backward, lcs, at);
+	}
+
+	// -----------------------------------------------
+	// Banded and Thresholded LCS Length
+	// -----------------------------------------------
+
+	/**
+	 * Length of the longest common subsequence of the two strings whose matched
+	 * chars all lie within k of the table's main diagonal, i.e. rStr[i] matched
+	 * with cStr[j] only if |i - j| <= k. Only the O((m + n) * k) cells of that band
+	 * are evaluated, in a row of min(m, n) + 1 ints; as for lcsLength, only the
+	 * shorter string is copied whole, and the longer one is read CHUNK_CHARS
+	 * chars at a time, so memory stays O(min(m, n)). Does not touch memoCheck.
+	 * 
+	 * The result is never more than the full LCS length, and is exactly the full
+	 * length (as bottomUpLCS finds it) whenever max(m, n) - result <= k: an
+	 * optimal path with D insertions and deletions strays at most (D + |m - n|) /
+	 * 2 from the diagonal, which is max(m, n) - LCS.
+	 * 
+	 * @param rStr The String found along the table's rows
+	 * @param cStr The String found along the table's cols
+	 * @param k    Half-width of the band, at least 0
+	 * @return The LCS length of rStr and cStr restricted to the band
+	 */
+	public static int bandedLCSLength(String rStr, String cStr, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("Negative band: " + k);
+		}
+		return banded(rStr, cStr, k, 0);
+	}
+
+	/**
+	 * Length of the longest common subsequence of two int sequences restricted
+	 * to the band within k of the diagonal, as for bandedLCSLength(String,
+	 * String, int).
+	 * 
+	 * @param r The sequence found along the table's rows
+	 * @param c The sequence found along the table's cols
+	 * @param k Half-width of the band, at least 0
+	 * @return The LCS length of r and c restricted to the band
+	 */
+	public static int bandedLCSLength(int[] r, int[] c, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("Negative band: " + k);
+		}
+		return banded(r, c, k, 0);
+	}
+
+	/**
+	 * Whether the two strings have a common subsequence of at least the given
+	 * length, answered exactly as by comparing bottomUpLCS's length against it,
+	 * but usually far faster. An LCS of at least threshold lies within
+	 * max(m, n) - threshold of the diagonal, so only that band is evaluated, and
+	 * the search stops as soon as the threshold is reached or the best the
+	 * remaining rows could add can no longer reach it. Does not touch memoCheck.
+	 * 
+	 * A similarity threshold s on 2 * LCS / (m + n) is a length threshold of
+	 * ceil(s * (m + n) / 2).
+	 * 
+	 * @param rStr      The String found along the table's rows
+	 * @param cStr      The String found along the table's cols
+	 * @param threshold The required LCS length
+	 * @return Whether the LCS of rStr and cStr is at least threshold long
+	 */
+	public static boolean lcsAtLeast(String rStr, String cStr, int threshold) {
+		if (threshold <= 0) {
+			return true;
+		}
+		int m = rStr.length(), n = cStr.length();
+		if (threshold > Math.min(m, n)) {
+			return false;
+		}
+		return banded(rStr, cStr, Math.max(m, n) - threshold, threshold) >= threshold;
+	}
+
+	/**
+	 * Whether two int sequences have a common subsequence of at least the given
+	 * length, as for lcsAtLeast(String, String, int).
+	 * 
+	 * @param r         The sequence found along the table's rows
+	 * @param c         The sequence found along the table's cols
+	 * @param threshold The required LCS length
+	 * @return Whether the LCS of r and c is at least threshold long
+	 */
+	public static boolean lcsAtLeast(int[] r, int[] c, int threshold) {
+		if (threshold <= 0) {
+			return true;
+		}
+		if (threshold > Math.min(r.length, c.length)) {
+			return false;
+		}
+		return banded(r, c, Math.max(r.length, c.length) - threshold, threshold) >= threshold;
+	}
+
+	// BANDED HELPER METHODS!
+
+	/**
+	 * Rolling-row kernel over the band of cells within k of the diagonal. Cells
+	 * left of the band keep the value they had when they left it, which is
+	 * already final since no later row can match in their column; the cell just
+	 * right of the band is kept equal to the band's last cell, which is what the
+	 * rest of its row would hold.
+	 * 
+	 * @param threshold If positive, stop as soon as the result is known to be at
+	 *                  least threshold or known to be less than it
+	 * @return The banded LCS length of r and c; or, stopping early, some value on
+	 *         the same side of threshold as it
+	 */
+	private static int banded(int[] r, int[] c, int k, int threshold) {
+		// The shorter sequence runs along the row; the band is symmetric
+		if (r.length < c.length) {
+			int[] swap = r;
+			r = c;
+			c = swap;
+		}
+		int m = r.length, n = c.length;
+		k = Math.min(k, m);
+		int[] row = new int[n + 1];
+		// Rows past n + k have no cells in the band
+		int stopped = bandRows(r, 1, Math.min(m, n + k), m, c, k, threshold, row);
+		return stopped >= 0 ? stopped : row[n];
+	}
+
+	/**
+	 * The banded kernel over two strings, with the shorter one copied to an int
+	 * sequence along the row and the longer one copied CHUNK_CHARS chars at a
+	 * time, as the rows reach them.
+	 */
+	private static int banded(String rStr, String cStr, int k, int threshold) {
+		String longer = rStr.length() < cStr.length() ? cStr : rStr;
+		int[] c = symbols(longer == rStr ? cStr : rStr);
+		int m = longer.length(), n = c.length;
+		k = Math.min(k, m);
+		int[] row = new int[n + 1];
+		int rows = Math.min(m, n + k);
+		int[] chunk = new int[Math.min(rows, CHUNK_CHARS)];
+		for (int from = 1; from <= rows; from += chunk.length) {
+			int to = Math.min(rows, from + chunk.length - 1);
+			symbols(longer, from - 1, to, chunk);
+			int stopped = bandRows(chunk, from, to, m, c, k, threshold, row);
+			if (stopped >= 0) {
+				return stopped;
+			}
+		}
+		return row[n];
+	}
+
+	/**
+	 * Advances the banded row past rows [from, to] of the table (counted from
+	 * 1), whose symbols are r[0, to - from].
+	 * 
+	 * @param m Number of rows in the whole table
+	 * @return The result if stopping early for threshold, or -1 to go on
+	 */
+	private static int bandRows(int[] r, int from, int to, int m, int[] c, int k, int threshold, int[] row) {
+		int n = c.length;
+		for (int i = from; i <= to; i++) {
+			int lo = Math.max(1, i - k), hi = Math.min(n, i + k);
+			int symbol = r[i - from], diagonal = row[lo - 1], left = row[lo - 1];
+			// Any path to the end crosses this row at some column j, gaining at
+			// most min(m - i, n - j) more; columns outside [lo - 1, hi] can do no
+			// better than those at its ends
+			int bound = left + Math.min(m - i, n - lo + 1);
+			for (int j = lo; j <= hi; j++) {
+				int up = row[j];
+				left = symbol == c[j - 1] ? diagonal + 1 : Math.max(up, left);
+				row[j] = left;
+				diagonal = up;
+				bound = Math.max(bound, left + Math.min(m - i, n - j));
+			}
+			if (hi < n) {
+				row[hi + 1] = left;
+			}
+			if (threshold > 0 && (left >= threshold || bound < threshold)) {
+				return left;
+			}
+		}
+		return -1;
+	}
+
+	// -----------------------------------------------
+	// Adaptive LCS
+	// -----------------------------------------------
+
+	/**
+	 * Finds one longest common subsequence of the two strings with whichever of
+	 * Myers' O((m + n) * D) diff and Hirschberg's O(mn) DP should be faster, D
+	 * being the number of insertions and deletions between them. Myers takes
+	 * about (m + n) * D steps to the DP's mn cells, so it is chosen when a short
+	 * probe of the Myers search puts D below mn / (m + n); the probe itself
+	 * costs at most a sixteenth of that. Both run in linear space. Does not touch
+	 * memoCheck.
+	 * 
+	 * @param rStr The String found along the table's rows
+	 * @param cStr The String found along the table's cols
+	 * @return A longest common subsequence of rStr and cStr
+	 */
+	public static String adaptiveLCS(String rStr, String cStr) {
+		return string(adaptiveLCS(symbols(rStr), symbols(cStr)));
+	}
+
+	/**
+	 * Finds one longest common subsequence of two int sequences with whichever
+	 * of Myers' diff and Hirschberg's DP should be faster, as for
+	 * adaptiveLCS(String, String).
+	 * 
+	 * @param r The sequence found along the table's rows
+	 * @param c The sequence found along the table's cols
+	 * @return A longest common subsequence of r and c
+	 */
+	public static int[] adaptiveLCS(int[] r, int[] c) {
+		return usesMyers(r, c) ? MyersDiff.lcs(r, c) : hirschbergLCS(r, c);
+	}
+
+	// ADAPTIVE HELPER METHODS!
+
+	/**
+	 * @return Whether Myers' diff is expected to beat the DP on these sequences
+	 */
+	static boolean usesMyers(int[] r, int[] c) {
+		int total = r.length + c.length;
+		if (total == 0) {
+			return true;
 		}
-		return memo[rIndex][cIndex];
+		int breakEven = (int) ((long) r.length * c.length / total);
+		return MyersDiff.estimateDistance(r, c, Math.max(16, breakEven / 16)) <= breakEven;
 	}
 }
@@ -0,0 +1,141 @@
+package lcs;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Rough throughput benchmarks for the LCS engines, run as a main program.
+ * Timings are the best of several repetitions after warm-up; treat them as
+ * relative comparisons rather than absolute numbers.
+ *
+ * Usage: LCSBenchmark [string length]
+ */
+public class LCSBenchmark {
+
+	private static final int REPETITIONS = 3;
+
+	public static void main(String[] args) {
+		int length = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		Random random = new Random(42);
+		String r = randomString(random, length, 26), c = randomString(random, length, 26);
+
+		wavefront(r, c);
+		batchScoring(random, 1_000_000);
+		thresholds(random, length);
+	}
+
+	// -----------------------------------------------
+	// Benchmarks
+	// -----------------------------------------------
+
+	/**
+	 * Scaling of the tiled wavefront table fill from 1 worker up to the number of
+	 * available processors. Speedup is relative to the 1-worker fill, so it
+	 * measures parallelism alone rather than the tile loop's gain over the
+	 * sequential fill, which is printed separately. Rows with more workers than
+	 * cores are marked, since they can't show scaling.
+	 */
+	static void wavefront(String r, String c) {
+		String rStr = "0" + r, cStr = "0" + c;
+		double cells = (double) rStr.length() * cStr.length();
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("== Wavefront table fill (" + r.length() + " x " + c.length() + ", "
+				+ LCS.DEFAULT_TILE_SIZE + "-cell tiles, " + cores + " cores) ==");
+		System.out.println("workers  Mcells/s  speedup");
+
+		long sequential = best(() -> LCS.lcsLength(r, c, true));
+		System.out.printf("%7s  %8.1f%n", "seq", cells / (sequential / 1e3));
+		long single = 0;
+		for (int workers = 1; workers <= Math.max(cores, 4); workers *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(workers);
+			long nanos = best(() -> LCS.parallelTableFill(rStr, cStr, LCS.DEFAULT_TILE_SIZE, pool));
+			pool.shutdown();
+			if (workers == 1) {
+				single = nanos;
+			}
+			System.out.printf("%7d  %8.1f  %7.2f%s%n", workers, cells / (nanos / 1e3), (double) single / nanos,
+					workers > cores ? "  (more workers than cores)" : "");
+		}
+	}
+
+	/**
+	 * Scoring many short pairs with reusable per-thread scratch buffers, against
+	 * the allocating rolling-row length, and on a pool of all available cores.
+	 */
+	static void batchScoring(Random random, int pairs) {
+		String[] first = new String[pairs], second = new String[pairs];
+		for (int i = 0; i < pairs; i++) {
+			first[i] = randomString(random, 8 + random.nextInt(120), 26);
+			second[i] = randomString(random, 8 + random.nextInt(120), 26);
+		}
+		System.out.println("== Batch scoring (" + pairs + " pairs of 8-127 chars) ==");
+		System.out.println("scorer                  Mpairs/s");
+
+		long nanos = best(() -> {
+			for (int i = 0; i < pairs; i++) {
+				LCS.lcsLength(first[i], second[i]);
+			}
+		});
+		System.out.printf("%-22s  %8.2f%n", "LCS.lcsLength", pairs / (nanos / 1e3));
+
+		LCSScorer scorer = new LCSScorer();
+		nanos = best(() -> scorer.similarities(first, second));
+		System.out.printf("%-22s  %8.2f%n", "LCSScorer", pairs / (nanos / 1e3));
+
+		ForkJoinPool pool = new ForkJoinPool();
+		nanos = best(() -> scorer.similarities(first, second, pool));
+		pool.shutdown();
+		System.out.printf("%-22s  %8.2f%n", "LCSScorer, " + pool.getParallelism() + " workers", pairs / (nanos / 1e3));
+	}
+
+	/**
+	 * Deciding whether the LCS reaches a threshold, against computing the full
+	 * length, for a near-identical pair and an unrelated one.
+	 */
+	static void thresholds(Random random, int length) {
+		String a = randomString(random, length, 26);
+		StringBuilder near = new StringBuilder(a);
+		for (int i = 0; i < length / 100; i++) {
+			near.setCharAt(random.nextInt(length), (char) ('a' + random.nextInt(26)));
+		}
+		String b = randomString(random, length, 26);
+		System.out.println("== Threshold checks (" + length + " chars, 90% threshold) ==");
+		System.out.println("pair       full ms  threshold ms");
+		String[] names = { "near", "unrelated" }, others = { near.toString(), b };
+		for (int p = 0; p < others.length; p++) {
+			String other = others[p];
+			int threshold = (int) Math.ceil(0.9 * length);
+			long full = best(() -> LCS.lcsLength(a, other));
+			long check = best(() -> LCS.lcsAtLeast(a, other, threshold));
+			System.out.printf("%-9s  %7.1f  %12.3f%n", names[p], full / 1e6, check / 1e6);
+		}
+	}
+
+	// -----------------------------------------------
+	// Helpers
+	// -----------------------------------------------
+
+	/**
+	 * @return Fastest of REPETITIONS timed runs, in nanoseconds, after one
+	 *         untimed warm-up run
+	 */
+	static long best(Runnable run) {
+		run.run();
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < REPETITIONS; i++) {
+			long start = System.nanoTime();
+			run.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	static String randomString(Random random, int length, int alphabet) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('a' + random.nextInt(alphabet)));
+		}
+		return sb.toString();
+	}
+
+}
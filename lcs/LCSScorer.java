@@ -0,0 +1,199 @@
+package lcs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Scores the LCS length or similarity of many string pairs, for batch jobs over
+ * millions of short pairs. Each thread using a scorer gets its own scratch
+ * buffers, reused from pair to pair, so scoring allocates nothing per pair in
+ * the steady state; and a scorer has no state shared between threads, so one
+ * instance can be used from any number of threads at once.
+ *
+ * Pairs are scored bit-parallel (see BitParallelLCS), so a pair whose shorter
+ * string fits in k machine words costs O(k * m + n) time. Only a shorter string
+ * with very many distinct chars falls back to a rolling row of the table.
+ */
+public class LCSScorer {
+
+	// Pairs per task when scoring on a pool
+	private static final int BATCH_CHUNK = 1 << 10;
+
+	// Most mask words kept per thread before falling back to a rolling row
+	private static final int MAX_MASK_WORDS = 1 << 16;
+
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	// -----------------------------------------------
+	// Scoring
+	// -----------------------------------------------
+
+	/**
+	 * @return The length of the LCS of a and b
+	 */
+	public int length(CharSequence a, CharSequence b) {
+		if (a.length() < b.length()) {
+			CharSequence swap = a;
+			a = b;
+			b = swap;
+		}
+		return scratch.get().bitLength(a, b);
+	}
+
+	/**
+	 * @return The LCS similarity of a and b: 2 * LCS / (|a| + |b|), from 0 for no
+	 *         chars in common to 1 for equal strings (including two empty ones)
+	 */
+	public double similarity(CharSequence a, CharSequence b) {
+		int total = a.length() + b.length();
+		return total == 0 ? 1 : 2.0 * length(a, b) / total;
+	}
+
+	/**
+	 * @return The LCS length of each pair (first[i], second[i])
+	 */
+	public int[] lengths(CharSequence[] first, CharSequence[] second) {
+		checkPairs(first, second);
+		int[] lengths = new int[first.length];
+		for (int i = 0; i < first.length; i++) {
+			lengths[i] = length(first[i], second[i]);
+		}
+		return lengths;
+	}
+
+	/**
+	 * @return The similarity of each pair (first[i], second[i])
+	 */
+	public double[] similarities(CharSequence[] first, CharSequence[] second) {
+		checkPairs(first, second);
+		double[] similarities = new double[first.length];
+		score(first, second, 0, first.length, similarities);
+		return similarities;
+	}
+
+	/**
+	 * @return The similarity of each pair (first[i], second[i]), scored in chunks
+	 *         by the workers of the given pool
+	 */
+	public double[] similarities(CharSequence[] first, CharSequence[] second, ForkJoinPool pool) {
+		checkPairs(first, second);
+		double[] similarities = new double[first.length];
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		for (int from = 0; from < first.length; from += BATCH_CHUNK) {
+			int start = from, end = Math.min(first.length, from + BATCH_CHUNK);
+			tasks.add(pool.submit(() -> score(first, second, start, end, similarities)));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		return similarities;
+	}
+
+	private void score(CharSequence[] first, CharSequence[] second, int from, int to, double[] similarities) {
+		for (int i = from; i < to; i++) {
+			similarities[i] = similarity(first[i], second[i]);
+		}
+	}
+
+	private static void checkPairs(CharSequence[] first, CharSequence[] second) {
+		if (first.length != second.length) {
+			throw new IllegalArgumentException("Unpaired strings: " + first.length + " vs. " + second.length);
+		}
+	}
+
+	// -----------------------------------------------
+	// Scratch Buffers
+	// -----------------------------------------------
+
+	/**
+	 * One thread's reusable buffers: a dense index for every char (all 0 between
+	 * pairs), match masks for the chars of the shorter string, the bit vector, and
+	 * a row of the LCS table and copies of the pair's chars for when the masks
+	 * would be too big. All grow to fit the longest strings seen.
+	 */
+	private static final class Scratch {
+
+		final int[] index = new int[Character.MAX_VALUE + 1];
+		long[] masks = new long[64], v = new long[2];
+		int[] row = new int[65], aSymbols = new int[64], bSymbols = new int[64];
+
+		/**
+		 * Bit-parallel LCS length, with b's chars numbered from 1 in index while
+		 * scoring. Falls back to rowLength when b has too many distinct chars for
+		 * its length.
+		 */
+		int bitLength(CharSequence a, CharSequence b) {
+			int n = b.length(), words = (n + 63) >>> 6, symbols = 0;
+			for (int j = 0; j < n; j++) {
+				char c = b.charAt(j);
+				if (index[c] == 0) {
+					index[c] = ++symbols;
+				}
+			}
+			if ((long) symbols * words > MAX_MASK_WORDS) {
+				clearIndex(b);
+				return rowLength(a, b);
+			}
+			if (masks.length < symbols * words) {
+				masks = new long[Math.max(symbols * words, masks.length * 2)];
+			}
+			Arrays.fill(masks, 0, symbols * words, 0);
+			for (int j = 0; j < n; j++) {
+				masks[(index[b.charAt(j)] - 1) * words + (j >>> 6)] |= 1L << j;
+			}
+			if (v.length < words) {
+				v = new long[Math.max(words, v.length * 2)];
+			}
+			long[] v = this.v;
+			Arrays.fill(v, 0, words, -1L);
+
+			for (int i = 0; i < a.length(); i++) {
+				int symbol = index[a.charAt(i)] - 1;
+				if (symbol >= 0) {
+					BitParallelLCS.step(v, masks, symbol * words, words);
+				}
+			}
+			clearIndex(b);
+			return n - BitParallelLCS.ones(v, n);
+		}
+
+		private void clearIndex(CharSequence b) {
+			for (int j = 0; j < b.length(); j++) {
+				index[b.charAt(j)] = 0;
+			}
+		}
+
+		/**
+		 * Rolling-row LCS length, with b along the row, through the LCS.lcsRow
+		 * kernel on the pair's chars copied to the symbol buffers.
+		 */
+		int rowLength(CharSequence a, CharSequence b) {
+			int m = a.length(), n = b.length();
+			aSymbols = symbols(a, aSymbols);
+			bSymbols = symbols(b, bSymbols);
+			if (row.length < n + 1) {
+				row = new int[Math.max(n + 1, row.length * 2)];
+			}
+			return LCS.lcsRow(aSymbols, 0, m, bSymbols, 0, n, false, row)[n];
+		}
+
+		/**
+		 * @return The chars of str at the front of buffer, or of a bigger buffer
+		 *         if it's too small
+		 */
+		private static int[] symbols(CharSequence str, int[] buffer) {
+			if (buffer.length < str.length()) {
+				buffer = new int[Math.max(str.length(), buffer.length * 2)];
+			}
+			for (int i = 0; i < str.length(); i++) {
+				buffer[i] = str.charAt(i);
+			}
+			return buffer;
+		}
+
+	}
+
+}
@@ -3,7 +3,10 @@ package lcs;
 import static org.junit.Assert.*;
 import org.junit.Test;
 import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.Arrays;
+import java.util.Random;
 
 public class LCSTests {
     
@@ -184,4 +187,574 @@ public class LCSTests {
         );
     }
     
+    
+    // Linear-Space LCS Tests
+    // -----------------------------------------------
+    @Test
+    public void LSLCSTest_t0() {
+        assertEquals(0, LCS.lcsLength("", ""));
+        assertEquals(0, LCS.lcsLength("A", "B"));
+        assertEquals(1, LCS.lcsLength("A", "A"));
+        assertEquals(2, LCS.lcsLength("ABA", "BAA"));
+        assertEquals(4, LCS.lcsLength("ABCBDAB", "BDCABA"));
+    }
+    
+    @Test
+    public void LSLCSTest_t1() {
+        // Length alone leaves memoCheck alone; asking for the table fills it
+        // exactly as bottomUpLCS does
+        LCS.bottomUpLCS("ABA", "BAA");
+        int[][] before = LCS.memoCheck;
+        assertEquals(3, LCS.lcsLength("ABC", "ABC"));
+        assertSame(before, LCS.memoCheck);
+        
+        assertEquals(3, LCS.lcsLength("ABC", "ABC", true));
+        assertArrayEquals(
+            new int[][] {
+                {0, 0, 0, 0},
+                {0, 1, 1, 1},
+                {0, 1, 2, 2},
+                {0, 1, 2, 3}
+            },
+            LCS.memoCheck
+        );
+    }
+    
+    @Test
+    public void LSLCSTest_t2() {
+        // Agrees with the full table on random strings of mismatched lengths
+        Random random = new Random(41);
+        for (int t = 0; t < 200; t++) {
+            String r = randomString(random, random.nextInt(40), 1 + random.nextInt(4));
+            String c = randomString(random, random.nextInt(40), 1 + random.nextInt(4));
+            LCS.lcsLength(r, c, true);
+            assertEquals(LCS.memoCheck[r.length()][c.length()], LCS.lcsLength(r, c));
+            assertEquals(LCS.memoCheck[r.length()][c.length()], LCS.lcsLength(c, r));
+        }
+    }
+    
+    @Test
+    public void LSLCSTest_t3() {
+        // The longer string is fed to the kernel in chunks; lengths either side
+        // of whole chunks agree with the full table
+        Random random = new Random(4141);
+        for (int length : new int[] { 1023, 1024, 1025, 2500 }) {
+            String r = randomString(random, length, 4);
+            String c = randomString(random, 1 + random.nextInt(300), 4);
+            LCS.lcsLength(r, c, true);
+            assertEquals(LCS.memoCheck[r.length()][c.length()], LCS.lcsLength(r, c));
+            assertEquals(LCS.memoCheck[r.length()][c.length()], LCS.lcsLength(c, r));
+        }
+    }
+    
+    
+    // Hirschberg LCS Tests
+    // -----------------------------------------------
+    @Test
+    public void HBLCSTest_t0() {
+        assertEquals("", LCS.hirschbergLCS("", ""));
+        assertEquals("", LCS.hirschbergLCS("A", "B"));
+        assertEquals("A", LCS.hirschbergLCS("A", "A"));
+        assertEquals("ABC", LCS.hirschbergLCS("ABC", "ABC"));
+        assertTrue(new HashSet<>(Arrays.asList("AA", "BA")).contains(LCS.hirschbergLCS("ABA", "BAA")));
+    }
+    
+    @Test
+    public void HBLCSTest_t1() {
+        // One of the optimal solutions, on random strings
+        Random random = new Random(42);
+        for (int t = 0; t < 200; t++) {
+            String r = randomString(random, random.nextInt(40), 1 + random.nextInt(4));
+            String c = randomString(random, random.nextInt(40), 1 + random.nextInt(4));
+            String lcs = LCS.hirschbergLCS(r, c);
+            assertEquals(LCS.lcsLength(r, c), lcs.length());
+            assertTrue(isSubsequence(lcs, r));
+            assertTrue(isSubsequence(lcs, c));
+        }
+    }
+    
+    
+    // Bit-Parallel LCS Tests
+    // -----------------------------------------------
+    @Test
+    public void BPLCSTest_t0() {
+        assertEquals(0, BitParallelLCS.length("", ""));
+        assertEquals(0, BitParallelLCS.length("A", ""));
+        assertEquals(0, BitParallelLCS.length("A", "B"));
+        assertEquals(1, BitParallelLCS.length("A", "A"));
+        assertEquals(LCS.bottomUpLCS("ABC", "ABC").iterator().next().length(), BitParallelLCS.length("ABC", "ABC"));
+        assertEquals(LCS.bottomUpLCS("ABA", "BAA").iterator().next().length(), BitParallelLCS.length("ABA", "BAA"));
+    }
+    
+    @Test
+    public void BPLCSTest_t1() {
+        // Agrees with the bottom-up table, including across 64-bit word
+        // boundaries where carries propagate
+        Random random = new Random(43);
+        for (int t = 0; t < 300; t++) {
+            String r = randomString(random, random.nextInt(300), 1 + random.nextInt(6));
+            String c = randomString(random, random.nextInt(300), 1 + random.nextInt(6));
+            LCS.lcsLength(r, c, true);
+            assertEquals(LCS.memoCheck[r.length()][c.length()], BitParallelLCS.length(r, c));
+        }
+    }
+    
+    @Test
+    public void BPLCSTest_t2() {
+        // Masks scattered per row (used for very large alphabets) agree with
+        // precomputed masks
+        Random random = new Random(44);
+        for (int t = 0; t < 100; t++) {
+            int symbols = 1 + random.nextInt(8);
+            int[] a = new int[random.nextInt(200)], b = new int[1 + random.nextInt(200)];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = random.nextInt(symbols + 1) - 1;
+            }
+            for (int j = 0; j < b.length; j++) {
+                b[j] = random.nextInt(symbols);
+            }
+            int words = (b.length + 63) / 64;
+            assertEquals(
+                BitParallelLCS.denseLength(a, b, symbols, words),
+                BitParallelLCS.sparseLength(a, b, symbols, words)
+            );
+        }
+    }
+    
+    @Test
+    public void BPLCSTest_t3() {
+        // Symbols numbered through a value-indexed array (narrow ranges, far
+        // from 0 or negative) and through a hash table (values spread over the
+        // whole int range) agree with the rolling row
+        Random random = new Random(45);
+        int[][] alphabets = {
+            { 1000000, 1000001, 1000002, 1000003 },
+            { -5, -1, 0, 7 },
+            { Integer.MIN_VALUE, -1, 1, Integer.MAX_VALUE },
+            { Integer.MIN_VALUE, Integer.MIN_VALUE + 1, 42, 1 << 30, Integer.MAX_VALUE },
+        };
+        for (int[] alphabet : alphabets) {
+            for (int t = 0; t < 50; t++) {
+                int[] a = new int[random.nextInt(200)], b = new int[random.nextInt(200)];
+                for (int i = 0; i < a.length; i++) {
+                    a[i] = random.nextInt(8) == 0 ? random.nextInt() : alphabet[random.nextInt(alphabet.length)];
+                }
+                for (int j = 0; j < b.length; j++) {
+                    b[j] = alphabet[random.nextInt(alphabet.length)];
+                }
+                assertEquals(LCS.lcsLength(a, b), BitParallelLCS.length(a, b));
+                assertEquals(LCS.lcsLength(a, b), BitParallelLCS.length(b, a));
+            }
+        }
+        
+        // Numbers follow first appearance in b, with -1 for symbols only in a
+        int[] aIndex = new int[4], bIndex = new int[4];
+        assertEquals(3, BitParallelLCS.number(new int[] { 9, -3, Integer.MAX_VALUE, 5 },
+            new int[] { Integer.MAX_VALUE, 5, Integer.MAX_VALUE, -3 }, aIndex, bIndex));
+        assertArrayEquals(new int[] { -1, 2, 0, 1 }, aIndex);
+        assertArrayEquals(new int[] { 0, 1, 0, 2 }, bIndex);
+    }
+    
+    
+    // LCS Enumeration Tests
+    // -----------------------------------------------
+    @Test
+    public void ENLCSTest_t0() {
+        // Every solution, as many as the limit allows
+        assertEquals(
+            new HashSet<>(Arrays.asList(
+                "BCBA", "BCAB", "BDAB"
+            )),
+            LCS.bottomUpLCS("ABCBDAB", "BDCABA")
+        );
+        assertEquals(2, LCS.bottomUpLCS("ABCBDAB", "BDCABA", 2).size());
+        assertTrue(LCS.bottomUpLCS("ABCBDAB", "BDCABA").containsAll(LCS.bottomUpLCS("ABCBDAB", "BDCABA", 2)));
+    }
+    
+    @Test
+    public void ENLCSTest_t1() {
+        // Capped enumeration returns that many of the solutions, or all of them
+        Random random = new Random(45);
+        boolean capped = false;
+        for (int t = 0; t < 100; t++) {
+            String r = randomString(random, random.nextInt(60), 2 + random.nextInt(3));
+            String c = randomString(random, random.nextInt(60), 2 + random.nextInt(3));
+            Set<String> all = LCS.bottomUpLCS(r, c), some = LCS.bottomUpLCS(r, c, 25);
+            assertEquals(Math.min(25, all.size()), some.size());
+            assertTrue(all.containsAll(some));
+            capped |= all.size() > 25;
+        }
+        assertTrue(capped);
+    }
+    
+    @Test
+    public void ENLCSTest_t2() {
+        // Paths far longer than the call stack could hold
+        String r = randomString(new Random(44), 3000, 4);
+        assertEquals(new HashSet<>(Arrays.asList(r)), LCS.bottomUpLCS(r, r));
+    }
+    
+    @Test
+    public void ENLCSTest_t3() {
+        // Exactly the longest subsequences of one string found in the other,
+        // however many paths through the table lead to each
+        Random random = new Random(46);
+        for (int t = 0; t < 200; t++) {
+            String r = randomString(random, random.nextInt(11), 1 + random.nextInt(3));
+            String c = randomString(random, random.nextInt(11), 1 + random.nextInt(3));
+            Set<String> expected = new HashSet<>();
+            int best = LCS.lcsLength(r, c);
+            for (int subset = 0; subset < 1 << r.length(); subset++) {
+                StringBuilder sub = new StringBuilder();
+                for (int i = 0; i < r.length(); i++) {
+                    if ((subset & (1 << i)) != 0) {
+                        sub.append(r.charAt(i));
+                    }
+                }
+                if (sub.length() == best && isSubsequence(sub.toString(), c)) {
+                    expected.add(sub.toString());
+                }
+            }
+            assertEquals(expected, LCS.bottomUpLCS(r, c));
+        }
+    }
+    
+    
+    // Parallel Bottom-Up LCS Tests
+    // -----------------------------------------------
+    @Test
+    public void PBLCSTest_t0() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (String[] pair : new String[][] { {"A", "B"}, {"A", "A"}, {"ABC", "ABC"}, {"ABA", "BAA"}, {"ABCBDAB", "BDCABA"} }) {
+            Set<String> expected = LCS.bottomUpLCS(pair[0], pair[1]);
+            int[][] expectedMemo = LCS.memoCheck;
+            assertEquals(expected, LCS.parallelBottomUpLCS(pair[0], pair[1], pool));
+            assertArrayEquals(expectedMemo, LCS.memoCheck);
+        }
+        pool.shutdown();
+    }
+    
+    @Test
+    public void PBLCSTest_t1() {
+        // Same table as the sequential fill for any tiling, including tiles that
+        // don't divide the table evenly
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(45);
+        for (int t = 0; t < 200; t++) {
+            String r = randomString(random, random.nextInt(50), 1 + random.nextInt(4));
+            String c = randomString(random, random.nextInt(50), 1 + random.nextInt(4));
+            LCS.lcsLength(r, c, true);
+            assertArrayEquals(LCS.memoCheck, LCS.parallelTableFill("0" + r, "0" + c, 1 + random.nextInt(12), pool));
+        }
+        pool.shutdown();
+    }
+    
+    
+    // Iterative Top-Down LCS Tests
+    // -----------------------------------------------
+    @Test
+    public void ITLCSTest_t0() {
+        // Inputs whose dependency chains are far deeper than the call stack
+        String r = randomString(new Random(46), 5000, 4);
+        assertEquals(new HashSet<>(Arrays.asList(r)), LCS.topDownLCS(r, r));
+        assertEquals(5000, LCS.memoCheck[5000][5000]);
+        
+        // Every third char dropped: the LCS is what's left
+        StringBuilder c = new StringBuilder();
+        for (int i = 0; i < r.length(); i++) {
+            if (i % 3 != 0) {
+                c.append(r.charAt(i));
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList(c.toString())), LCS.topDownLCS(r, c.toString()));
+    }
+    
+    @Test
+    public void ITLCSTest_t1() {
+        // Demanded cells agree with the full table; the rest are left 0
+        Random random = new Random(48);
+        for (int t = 0; t < 200; t++) {
+            String r = randomString(random, random.nextInt(30), 1 + random.nextInt(4));
+            String c = randomString(random, random.nextInt(30), 1 + random.nextInt(4));
+            LCS.lcsLength(r, c, true);
+            int[][] full = LCS.memoCheck;
+            LCS.topDownLCS(r, c);
+            for (int row = 0; row <= r.length(); row++) {
+                for (int col = 0; col <= c.length(); col++) {
+                    int value = LCS.memoCheck[row][col];
+                    assertTrue(value == 0 || value == full[row][col]);
+                }
+            }
+            assertEquals(full[r.length()][c.length()], LCS.memoCheck[r.length()][c.length()]);
+        }
+    }
+    
+    
+    // Myers Diff Tests
+    // -----------------------------------------------
+    @Test
+    public void MDLCSTest_t0() {
+        assertEquals("", MyersDiff.lcs("", ""));
+        assertEquals("", MyersDiff.lcs("A", "B"));
+        assertEquals("ABC", MyersDiff.lcs("ABC", "ABC"));
+        assertEquals(4, MyersDiff.lcsLength("ABCBDAB", "BDCABA"));
+        assertTrue(LCS.bottomUpLCS("ABCBDAB", "BDCABA").contains(MyersDiff.lcs("ABCBDAB", "BDCABA")));
+    }
+    
+    @Test
+    public void MDLCSTest_t1() {
+        // Edit scripts turn the first string into the second, with an optimal
+        // number of matches
+        Random random = new Random(47);
+        for (int t = 0; t < 500; t++) {
+            String a = randomString(random, random.nextInt(60), 1 + random.nextInt(4));
+            String b = randomString(random, random.nextInt(60), 1 + random.nextInt(4));
+            StringBuilder applied = new StringBuilder();
+            int aAt = 0, bAt = 0, matched = 0;
+            for (MyersDiff.Edit edit : MyersDiff.diff(a, b)) {
+                assertEquals(aAt, edit.aFrom);
+                assertEquals(bAt, edit.bFrom);
+                if (edit.type == MyersDiff.Edit.Type.EQUAL) {
+                    assertEquals(a.substring(edit.aFrom, edit.aTo), b.substring(edit.bFrom, edit.bTo));
+                    matched += edit.aTo - edit.aFrom;
+                }
+                if (edit.type != MyersDiff.Edit.Type.DELETE) {
+                    applied.append(b, edit.bFrom, edit.bTo);
+                }
+                aAt = edit.aTo;
+                bAt = edit.bTo;
+            }
+            assertEquals(a.length(), aAt);
+            assertEquals(b, applied.toString());
+            assertEquals(LCS.lcsLength(a, b), matched);
+            assertEquals(matched, MyersDiff.lcsLength(a, b));
+        }
+    }
+    
+    @Test
+    public void MDLCSTest_t2() {
+        // Picks Myers for near-duplicates and the DP for unrelated strings, with
+        // an optimal solution either way
+        Random random = new Random(48);
+        String a = randomString(random, 5000, 26), b = randomString(random, 5000, 26);
+        StringBuilder near = new StringBuilder(a);
+        for (int i = 0; i < 50; i++) {
+            near.setCharAt(random.nextInt(near.length()), 'Z');
+        }
+        assertTrue(LCS.usesMyers(LCS.symbols(a), LCS.symbols(near.toString())));
+        assertFalse(LCS.usesMyers(LCS.symbols(a), LCS.symbols(b)));
+        for (String other : new String[] { near.toString(), b }) {
+            String lcs = LCS.adaptiveLCS(a, other);
+            assertEquals(LCS.lcsLength(a, other), lcs.length());
+            assertTrue(isSubsequence(lcs, a));
+            assertTrue(isSubsequence(lcs, other));
+        }
+    }
+    
+    
+    // Interned Sequence Tests
+    // -----------------------------------------------
+    @Test
+    public void SILCSTest_t0() {
+        SymbolInterner interner = new SymbolInterner();
+        assertArrayEquals(new int[] {0, 1, 0, 2}, interner.lines("foo\nbar\r\nfoo\n\n"));
+        assertArrayEquals(new int[] {1, 3, 0}, interner.lines("bar\nbaz\nfoo"));
+        assertArrayEquals(new int[] {0, 1, 4}, interner.tokens("  foo bar\tqux\n"));
+        assertEquals(5, interner.size());
+        assertEquals("baz", interner.symbol(3));
+        assertEquals("", interner.symbol(2));
+        assertEquals(4, interner.intern("qux"));
+    }
+    
+    @Test
+    public void SILCSTest_t1() {
+        // Line-level diff: every engine agrees with char-level LCS over one char
+        // per distinct line
+        Random random = new Random(49);
+        for (int t = 0; t < 100; t++) {
+            SymbolInterner interner = new SymbolInterner();
+            int[] a = interner.lines(randomLines(random, random.nextInt(80)));
+            int[] b = interner.lines(randomLines(random, random.nextInt(80)));
+            int expected = LCS.lcsLength(asChars(a), asChars(b));
+            assertEquals(expected, LCS.lcsLength(a, b));
+            assertEquals(expected, BitParallelLCS.length(a, b));
+            assertEquals(expected, MyersDiff.lcsLength(a, b));
+            assertEquals(expected, LCS.hirschbergLCS(a, b).length);
+            int[] lcs = LCS.adaptiveLCS(a, b);
+            assertEquals(expected, lcs.length);
+            assertTrue(isSubsequence(asChars(lcs), asChars(a)));
+            assertTrue(isSubsequence(asChars(lcs), asChars(b)));
+        }
+    }
+    
+    
+    // Batch Scoring Tests
+    // -----------------------------------------------
+    @Test
+    public void BSLCSTest_t0() {
+        LCSScorer scorer = new LCSScorer();
+        assertEquals(0, scorer.length("", ""));
+        assertEquals(2, scorer.length("ABA", "BAA"));
+        assertEquals(1.0, scorer.similarity("", ""), 0);
+        assertEquals(0.0, scorer.similarity("A", "B"), 0);
+        assertEquals(2 * 4 / 13.0, scorer.similarity("ABCBDAB", "BDCABA"), 1e-12);
+        
+        // Either side of the one-word limit
+        Random random = new Random(50);
+        for (int t = 0; t < 300; t++) {
+            String r = randomString(random, random.nextInt(140), 1 + random.nextInt(5));
+            String c = randomString(random, random.nextInt(140), 1 + random.nextInt(5));
+            assertEquals(LCS.lcsLength(r, c), scorer.length(r, c));
+        }
+        
+        // Too many distinct chars for the masks, falling back to a table row
+        for (int t = 0; t < 3; t++) {
+            String r = randomString(random, 3000, 3000), c = randomString(random, 2500 + t, 3000);
+            assertEquals(LCS.lcsLength(r, c), scorer.length(r, c));
+        }
+    }
+    
+    @Test
+    public void BSLCSTest_t1() {
+        // One scorer shared by many threads at once
+        Random random = new Random(51);
+        String[] first = new String[5000], second = new String[5000];
+        double[] expected = new double[first.length];
+        for (int i = 0; i < first.length; i++) {
+            first[i] = randomString(random, random.nextInt(100), 4);
+            second[i] = randomString(random, random.nextInt(100), 4);
+            int total = first[i].length() + second[i].length();
+            expected[i] = total == 0 ? 1 : 2.0 * LCS.lcsLength(first[i], second[i]) / total;
+        }
+        LCSScorer scorer = new LCSScorer();
+        ForkJoinPool pool = new ForkJoinPool(8);
+        assertArrayEquals(expected, scorer.similarities(first, second, pool), 0);
+        assertArrayEquals(expected, scorer.similarities(first, second), 0);
+        pool.shutdown();
+    }
+    
+    
+    // Banded and Thresholded Tests
+    // -----------------------------------------------
+    @Test
+    public void BTLCSTest_t0() {
+        assertEquals(0, LCS.bandedLCSLength("ABC", "CAB", 0));
+        assertEquals(2, LCS.bandedLCSLength("ABC", "CAB", 1));
+        assertEquals(4, LCS.bandedLCSLength("ABCBDAB", "BDCABA", 7));
+        
+        // Exactly the band-restricted table, and the full length when certified
+        Random random = new Random(52);
+        for (int t = 0; t < 500; t++) {
+            String r = randomString(random, random.nextInt(60), 1 + random.nextInt(4));
+            String c = randomString(random, random.nextInt(60), 1 + random.nextInt(4));
+            int k = random.nextInt(20);
+            int banded = LCS.bandedLCSLength(r, c, k);
+            int full = LCS.lcsLength(r, c, true);
+            assertEquals(bandedReference(r, c, k), banded);
+            assertTrue(banded <= full);
+            if (Math.max(r.length(), c.length()) - banded <= k) {
+                assertEquals(full, banded);
+            }
+            assertEquals(full, LCS.bandedLCSLength(r, c, Math.max(r.length(), c.length())));
+        }
+    }
+    
+    @Test
+    public void BTLCSTest_t1() {
+        // Every threshold either side of the full length
+        Random random = new Random(53);
+        for (int t = 0; t < 300; t++) {
+            String r = randomString(random, random.nextInt(60), 1 + random.nextInt(4));
+            String c = randomString(random, random.nextInt(60), 1 + random.nextInt(4));
+            int full = LCS.lcsLength(r, c, true);
+            for (int threshold = -1; threshold <= Math.min(r.length(), c.length()) + 1; threshold++) {
+                assertEquals(full >= threshold, LCS.lcsAtLeast(r, c, threshold));
+            }
+        }
+        
+        // Near-identical and unrelated long strings
+        String a = randomString(random, 8000, 4);
+        StringBuilder near = new StringBuilder(a);
+        for (int i = 0; i < 20; i++) {
+            near.deleteCharAt(random.nextInt(near.length()));
+        }
+        String b = randomString(random, 8000, 4);
+        for (String other : new String[] { near.toString(), b }) {
+            int full = LCS.lcsLength(a, other);
+            assertTrue(LCS.lcsAtLeast(a, other, full));
+            assertFalse(LCS.lcsAtLeast(a, other, full + 1));
+        }
+    }
+    
+    @Test
+    public void BTLCSTest_t2() {
+        // The longer string is read in chunks, with the band and early stops
+        // falling either side of their edges
+        Random random = new Random(54);
+        for (int length : new int[] { 1024, 1025, 2500 }) {
+            String r = randomString(random, length, 4);
+            String c = randomString(random, length - random.nextInt(100), 4);
+            for (int k : new int[] { 0, 30, length }) {
+                int banded = bandedReference(r, c, k);
+                assertEquals(banded, LCS.bandedLCSLength(r, c, k));
+                assertEquals(banded, LCS.bandedLCSLength(c, r, k));
+            }
+            int full = LCS.lcsLength(r, c);
+            for (int threshold : new int[] { full - 1, full, full + 1 }) {
+                assertEquals(full >= threshold, LCS.lcsAtLeast(r, c, threshold));
+                assertEquals(full >= threshold, LCS.lcsAtLeast(c, r, threshold));
+            }
+        }
+    }
+    
+    
+    // Helpers
+    // -----------------------------------------------
+    private static String randomString(Random random, int length, int alphabet) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('A' + random.nextInt(alphabet)));
+        }
+        return sb.toString();
+    }
+    
+    private static boolean isSubsequence(String sub, String str) {
+        int at = 0;
+        for (int i = 0; i < str.length() && at < sub.length(); i++) {
+            if (str.charAt(i) == sub.charAt(at)) {
+                at++;
+            }
+        }
+        return at == sub.length();
+    }
+    
+    private static String randomLines(Random random, int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("line ").append(random.nextInt(12)).append('\n');
+        }
+        return sb.toString();
+    }
+    
+    private static String asChars(int[] ids) {
+        StringBuilder sb = new StringBuilder(ids.length);
+        for (int id : ids) {
+            sb.append((char) ('A' + id));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * LCS length over the full table with matches outside the band ignored.
+     */
+    private static int bandedReference(String r, String c, int k) {
+        int[][] table = new int[r.length() + 1][c.length() + 1];
+        for (int i = 1; i <= r.length(); i++) {
+            for (int j = 1; j <= c.length(); j++) {
+                boolean match = Math.abs(i - j) <= k && r.charAt(i - 1) == c.charAt(j - 1);
+                table[i][j] = match ? table[i - 1][j - 1] + 1 : Math.max(table[i - 1][j], table[i][j - 1]);
+            }
+        }
+        return table[r.length()][c.length()];
+    }
 }
@@ -0,0 +1,312 @@
+package lcs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Myers' O((N + M) * D) difference algorithm, where D is the number of
+ * insertions and deletions needed to turn one sequence into the other. The
+ * search follows furthest-reaching D-paths along each diagonal of the edit
+ * graph, sliding for free along matching "snakes", so near-identical inputs
+ * cost little more than a linear scan. Edit scripts are recovered in linear
+ * space by the middle-snake refinement: searching from both ends at once to a
+ * snake in the middle of an optimal path, then solving the halves on either
+ * side of it the same way.
+ *
+ * The LCS of the two sequences is exactly the matched part of a shortest edit
+ * script, so LCS length = (N + M - D) / 2.
+ */
+public final class MyersDiff {
+
+	private MyersDiff() {
+	}
+
+	// -----------------------------------------------
+	// Edit Scripts
+	// -----------------------------------------------
+
+	/**
+	 * One run of a shortest edit script turning a into b: a[aFrom, aTo) equals
+	 * b[bFrom, bTo) (EQUAL), is deleted (DELETE, with bFrom == bTo where it was),
+	 * or b[bFrom, bTo) is inserted (INSERT, with aFrom == aTo where it goes).
+	 */
+	public static final class Edit {
+
+		public enum Type {
+			EQUAL, DELETE, INSERT
+		}
+
+		public final Type type;
+		public final int aFrom, aTo, bFrom, bTo;
+
+		Edit(Type type, int aFrom, int aTo, int bFrom, int bTo) {
+			this.type = type;
+			this.aFrom = aFrom;
+			this.aTo = aTo;
+			this.bFrom = bFrom;
+			this.bTo = bTo;
+		}
+
+		@Override
+		public String toString() {
+			return type + " a[" + aFrom + ", " + aTo + ") b[" + bFrom + ", " + bTo + ")";
+		}
+
+	}
+
+	/**
+	 * @return A shortest edit script turning a into b, as alternating runs of
+	 *         equal, deleted and inserted chars in order
+	 */
+	public static List<Edit> diff(String a, String b) {
+		return diff(LCS.symbols(a), LCS.symbols(b));
+	}
+
+	/**
+	 * @return One longest common subsequence of a and b: the equal runs of a
+	 *         shortest edit script
+	 */
+	public static String lcs(String a, String b) {
+		return LCS.string(lcs(LCS.symbols(a), LCS.symbols(b)));
+	}
+
+	/**
+	 * @return The length of the LCS of a and b
+	 */
+	public static int lcsLength(String a, String b) {
+		return lcsLength(LCS.symbols(a), LCS.symbols(b));
+	}
+
+	/**
+	 * @return The length of the LCS of int sequences a and b (e.g., lines or
+	 *         tokens interned by a SymbolInterner)
+	 */
+	public static int lcsLength(int[] a, int[] b) {
+		return (a.length + b.length - distance(a, b, a.length + b.length)) / 2;
+	}
+
+	/**
+	 * @return One longest common subsequence of int sequences a and b: the equal
+	 *         runs of a shortest edit script
+	 */
+	public static int[] lcs(int[] a, int[] b) {
+		List<Edit> edits = diff(a, b);
+		int length = 0;
+		for (Edit edit : edits) {
+			if (edit.type == Edit.Type.EQUAL) {
+				length += edit.aTo - edit.aFrom;
+			}
+		}
+		int[] lcs = new int[length];
+		int at = 0;
+		for (Edit edit : edits) {
+			if (edit.type == Edit.Type.EQUAL) {
+				System.arraycopy(a, edit.aFrom, lcs, at, edit.aTo - edit.aFrom);
+				at += edit.aTo - edit.aFrom;
+			}
+		}
+		return lcs;
+	}
+
+	/**
+	 * @return A shortest edit script turning int sequence a into int sequence b
+	 *         (e.g., lines or tokens interned by a SymbolInterner)
+	 */
+	public static List<Edit> diff(int[] a, int[] b) {
+		Script script = new Script(a, b);
+		script.diff(0, a.length, 0, b.length);
+		return script.edits;
+	}
+
+	// -----------------------------------------------
+	// Edit Distance
+	// -----------------------------------------------
+
+	/**
+	 * Forward-only greedy search for the edit distance, giving up once it exceeds
+	 * a bound: O((N + M) * maxD) time and O(maxD) space.
+	 *
+	 * @param maxD The largest distance worth finding
+	 * @return The number of insertions and deletions turning a into b, or -1 if
+	 *         that is more than maxD
+	 */
+	static int distance(int[] a, int[] b, int maxD) {
+		return search(a, b, maxD, false);
+	}
+
+	/**
+	 * Estimates the edit distance from a short forward search, costing
+	 * O((N + M) * probeD) time at most.
+	 *
+	 * @param probeD Number of search steps to take
+	 * @return The exact distance if it's at most probeD, otherwise the distance
+	 *         extrapolated from how far through the edit graph the furthest path
+	 *         got in probeD steps
+	 */
+	static int estimateDistance(int[] a, int[] b, int probeD) {
+		return search(a, b, probeD, true);
+	}
+
+	private static int search(int[] a, int[] b, int maxD, boolean estimate) {
+		int n = a.length, m = b.length;
+		maxD = Math.min(maxD, n + m);
+		int offset = maxD + 1, furthest = 0;
+		int[] v = new int[2 * maxD + 3];
+		for (int d = 0; d <= maxD; d++) {
+			for (int k = -d; k <= d; k += 2) {
+				int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) ? v[offset + k + 1]
+						: v[offset + k - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && a[x] == b[y]) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+				if (x >= n && y >= m) {
+					return d;
+				}
+				furthest = Math.max(furthest, x + y);
+			}
+		}
+		if (!estimate) {
+			return -1;
+		}
+		return (int) Math.min(n + m, (long) (maxD + 1) * (n + m) / Math.max(1, furthest));
+	}
+
+	// -----------------------------------------------
+	// Middle Snake
+	// -----------------------------------------------
+
+	/**
+	 * Accumulates the edit script of a pair of sequences, with forward and
+	 * backward furthest-reaching arrays allocated once and shared by every
+	 * subproblem.
+	 */
+	private static final class Script {
+
+		final int[] a, b;
+		final int[] forward, backward;
+		final List<Edit> edits = new ArrayList<>();
+
+		// The middle snake found by the last call to middleSnake
+		int snakeX0, snakeY0, snakeX1, snakeY1;
+
+		Script(int[] a, int[] b) {
+			this.a = a;
+			this.b = b;
+			int size = 2 * ((a.length + b.length + 1) / 2) + 3;
+			forward = new int[size];
+			backward = new int[size];
+		}
+
+		/**
+		 * Appends the edit script of a[aLo, aHi) against b[bLo, bHi). Recursion
+		 * depth is logarithmic in the distance, since each half of the split has at
+		 * most half of it, rounded up.
+		 */
+		void diff(int aLo, int aHi, int bLo, int bHi) {
+			// Common prefix and suffix cost nothing
+			int prefix = aLo;
+			while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+				aLo++;
+				bLo++;
+			}
+			emit(Edit.Type.EQUAL, prefix, aLo, bLo - (aLo - prefix), bLo);
+			int aEnd = aHi, bEnd = bHi;
+			while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+				aHi--;
+				bHi--;
+			}
+
+			if (aLo == aHi) {
+				emit(Edit.Type.INSERT, aLo, aLo, bLo, bHi);
+			} else if (bLo == bHi) {
+				emit(Edit.Type.DELETE, aLo, aHi, bLo, bLo);
+			} else {
+				middleSnake(aLo, aHi, bLo, bHi);
+				int x0 = aLo + snakeX0, y0 = bLo + snakeY0, x1 = aLo + snakeX1, y1 = bLo + snakeY1;
+				diff(aLo, x0, bLo, y0);
+				emit(Edit.Type.EQUAL, x0, x1, y0, y1);
+				diff(x1, aHi, y1, bHi);
+			}
+			emit(Edit.Type.EQUAL, aHi, aEnd, bHi, bEnd);
+		}
+
+		/**
+		 * Finds a snake in the middle of an optimal path through the edit graph of
+		 * a[aLo, aHi) against b[bLo, bHi), by extending furthest-reaching paths from
+		 * the top-left (forward) and bottom-right (backward) corners a step at a
+		 * time until they overlap on some diagonal. Sets snakeX0 .. snakeY1 to the
+		 * snake's ends, relative to (aLo, bLo).
+		 */
+		private void middleSnake(int aLo, int aHi, int bLo, int bHi) {
+			int n = aHi - aLo, m = bHi - bLo, delta = n - m;
+			boolean odd = (delta & 1) != 0;
+			int max = (n + m + 1) / 2, offset = max + 1;
+			// Backward diagonal k is forward diagonal delta - k; x counts back from
+			// the end
+			forward[offset + 1] = 0;
+			backward[offset + 1] = 0;
+			for (int d = 0; d <= max; d++) {
+				for (int k = -d; k <= d; k += 2) {
+					int x = (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1]))
+							? forward[offset + k + 1] : forward[offset + k - 1] + 1;
+					int y = x - k, startX = x, startY = y;
+					while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+						x++;
+						y++;
+					}
+					forward[offset + k] = x;
+					int back = delta - k;
+					if (odd && back >= -(d - 1) && back <= d - 1 && x + backward[offset + back] >= n) {
+						setSnake(startX, startY, x, y);
+						return;
+					}
+				}
+				for (int k = -d; k <= d; k += 2) {
+					int x = (k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1]))
+							? backward[offset + k + 1] : backward[offset + k - 1] + 1;
+					int y = x - k, startX = x, startY = y;
+					while (x < n && y < m && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+						x++;
+						y++;
+					}
+					backward[offset + k] = x;
+					int ahead = delta - k;
+					if (!odd && ahead >= -d && ahead <= d && x + forward[offset + ahead] >= n) {
+						setSnake(n - x, m - y, n - startX, m - startY);
+						return;
+					}
+				}
+			}
+			throw new AssertionError("No middle snake");
+		}
+
+		private void setSnake(int x0, int y0, int x1, int y1) {
+			snakeX0 = x0;
+			snakeY0 = y0;
+			snakeX1 = x1;
+			snakeY1 = y1;
+		}
+
+		/**
+		 * Appends a run, merging it into the last one if they're of the same type.
+		 */
+		private void emit(Edit.Type type, int aFrom, int aTo, int bFrom, int bTo) {
+			if (aFrom == aTo && bFrom == bTo) {
+				return;
+			}
+			if (!edits.isEmpty()) {
+				Edit last = edits.get(edits.size() - 1);
+				if (last.type == type && last.aTo == aFrom && last.bTo == bFrom) {
+					edits.set(edits.size() - 1, new Edit(type, last.aFrom, aTo, last.bFrom, bTo));
+					return;
+				}
+			}
+			edits.add(new Edit(type, aFrom, aTo, bFrom, bTo));
+		}
+
+	}
+
+}
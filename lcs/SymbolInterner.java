@@ -0,0 +1,173 @@
+package lcs;
+
+import java.util.Arrays;
+
+/**
+ * Maps lines or tokens of text to small int ids, equal strings to equal ids, so
+ * that the LCS and diff engines can compare whole lines or tokens with a single
+ * int comparison. Ids are dense, starting from 0 in order of first appearance,
+ * and the same interner must be used for both sequences being compared.
+ *
+ * Lines and tokens are hashed and compared in place in the text they come from,
+ * in an open-addressed table, so only the first occurrence of each distinct
+ * line or token is ever copied out into its own String.
+ */
+public class SymbolInterner {
+
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+	// Open-addressed table of (id + 1), 0 for an empty slot, and each id's string
+	// and hash
+	private int[] slots = new int[INITIAL_CAPACITY];
+	private String[] strings = new String[INITIAL_CAPACITY / 2];
+	private int[] hashes = new int[INITIAL_CAPACITY / 2];
+	private int size;
+
+	/**
+	 * @return The id of the given string
+	 */
+	public int intern(String str) {
+		return intern(str, 0, str.length());
+	}
+
+	/**
+	 * @return The id of text[from, to), as if it were a String of its own
+	 */
+	public int intern(CharSequence text, int from, int to) {
+		int hash = hash(text, from, to);
+		int mask = slots.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id < 0) {
+				break;
+			}
+			if (hashes[id] == hash && matches(strings[id], text, from, to)) {
+				return id;
+			}
+		}
+
+		if (size == strings.length) {
+			strings = Arrays.copyOf(strings, size * 2);
+			hashes = Arrays.copyOf(hashes, size * 2);
+			rehash(slots.length * 2);
+		}
+		int id = size++;
+		strings[id] = text.subSequence(from, to).toString();
+		hashes[id] = hash;
+		insert(id);
+		return id;
+	}
+
+	/**
+	 * @return The ids of the lines of the text, each ending at a "\n" or "\r\n" or
+	 *         the end of the text (the line terminators not included), with no
+	 *         line after a final terminator
+	 */
+	public int[] lines(CharSequence text) {
+		int[] ids = new int[16];
+		int count = 0, start = 0, length = text.length();
+		while (start < length) {
+			int end = start;
+			while (end < length && text.charAt(end) != '\n') {
+				end++;
+			}
+			int next = end + 1;
+			if (end > start && end < length && text.charAt(end - 1) == '\r') {
+				end--;
+			}
+			if (count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+			}
+			ids[count++] = intern(text, start, end);
+			start = next;
+		}
+		return Arrays.copyOf(ids, count);
+	}
+
+	/**
+	 * @return The ids of the tokens of the text: maximal runs of non-whitespace
+	 *         chars
+	 */
+	public int[] tokens(CharSequence text) {
+		int[] ids = new int[16];
+		int count = 0, at = 0, length = text.length();
+		while (true) {
+			while (at < length && Character.isWhitespace(text.charAt(at))) {
+				at++;
+			}
+			if (at == length) {
+				return Arrays.copyOf(ids, count);
+			}
+			int start = at;
+			while (at < length && !Character.isWhitespace(text.charAt(at))) {
+				at++;
+			}
+			if (count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+			}
+			ids[count++] = intern(text, start, at);
+		}
+	}
+
+	/**
+	 * @return The string with the given id
+	 */
+	public String symbol(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("No symbol " + id + " of " + size);
+		}
+		return strings[id];
+	}
+
+	/**
+	 * @return Number of distinct strings interned so far
+	 */
+	public int size() {
+		return size;
+	}
+
+	// -----------------------------------------------
+	// Helpers
+	// -----------------------------------------------
+
+	private void rehash(int capacity) {
+		slots = new int[capacity];
+		for (int id = 0; id < size; id++) {
+			insert(id);
+		}
+	}
+
+	private void insert(int id) {
+		int mask = slots.length - 1, slot = hashes[id] & mask;
+		while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = id + 1;
+	}
+
+	/**
+	 * @return String.hashCode of text[from, to), spread so that its low bits,
+	 *         which pick the slot, depend on all of it
+	 */
+	private static int hash(CharSequence text, int from, int to) {
+		int hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean matches(String str, CharSequence text, int from, int to) {
+		if (str.length() != to - from) {
+			return false;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			if (str.charAt(i) != text.charAt(from + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,40 @@
+package nim;
+
+/**
+ * Static evaluator used by a NimPlayer to score states at the search horizon
+ * when it cannot afford to search all the way down to the empty pile.
+ */
+public interface NimEvaluator {
+    
+    /**
+     * Evaluator with no opinion on any state; the search then relies only on
+     * the wins and losses it can actually see within its horizon
+     */
+    NimEvaluator NEUTRAL = (remaining, isMax) -> 0;
+    
+    /**
+     * Estimates the minimax score of a non-terminal state.
+     * 
+     * @param   remaining   The number of stones left in the pile (> 0)
+     * @param   isMax       Whether it is max's turn to move in this state
+     * @return  Estimated score from max's point of view; values outside of
+     *          (NimPlayer.LOSS_SCORE, NimPlayer.WIN_SCORE) are clamped into it
+     *          so that heuristics never masquerade as proven results
+     */
+    int evaluate (int remaining, boolean isMax);
+    
+    /**
+     * Evaluator for single-pile Nim with the given removal limit: the player to
+     * move loses exactly when the pile is a multiple of (MAX_REMOVAL + 1).
+     * 
+     * @param   MAX_REMOVAL The most stones that may be taken in one turn
+     * @return  Evaluator scoring proven states just inside the win / loss scores
+     */
+    static NimEvaluator modular (int MAX_REMOVAL) {
+        return (remaining, isMax) -> {
+            boolean moverLoses = remaining % (MAX_REMOVAL + 1) == 0;
+            return (moverLoses == isMax) ? NimPlayer.LOSS_SCORE + 1 : NimPlayer.WIN_SCORE - 1;
+        };
+    }
+    
+}
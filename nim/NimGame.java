@@ -10,6 +10,9 @@ public class NimGame {
     
     public static final int MAX_REMOVAL = 3, INIT_STATE = 7;
     
+    // Time the agent may spend choosing each move
+    public static final long MOVE_BUDGET_MS = 200;
+    
     public static void main (String[] args) {
         Scanner input = new Scanner(System.in);
         
@@ -39,7 +42,7 @@ public class NimGame {
             
             // Agent's turn
             } else {
-                taken = nimesis.choose(remaining);
+                taken = nimesis.choose(remaining, SearchBudget.millis(MOVE_BUDGET_MS));
                 System.out.println("  [Nimesis' Turn] > " + taken);
             }
             
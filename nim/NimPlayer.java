@@ -1,7 +1,9 @@
 package nim;
 
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Artificial Intelligence responsible for playing the game of Nim!
@@ -9,12 +11,47 @@ import java.util.Map;
  */
 public class NimPlayer {
     
+    public static final int WIN_SCORE = 1000, LOSS_SCORE = -1000;
+    private static final int DEFAULT_TABLE_SIZE = 1 << 16;
+    
+    // Subtrees over fewer stones than this are searched sequentially by parallel searches
+    private static final int MIN_SPLIT_REMAINING = 32;
+    
     private final int MAX_REMOVAL;
+    private final TranspositionTable table;
+    private final NimEvaluator evaluator;
+    private SearchBudget budget;
     private int min = Integer.MIN_VALUE;
     private int max = Integer.MAX_VALUE;
     
     NimPlayer (int MAX_REMOVAL) {
+        this(MAX_REMOVAL, new TranspositionTable(DEFAULT_TABLE_SIZE));
+    }
+    
+    /**
+     * Constructs a NimPlayer that caches searched states in the given table,
+     * which is kept across calls to choose (and may be shared with other players
+     * using the same MAX_REMOVAL).
+     * 
+     * @param   MAX_REMOVAL The most stones that may be taken in one turn
+     * @param   table       Transposition table to memoize search results in
+     */
+    NimPlayer (int MAX_REMOVAL, TranspositionTable table) {
+        this(MAX_REMOVAL, table, NimEvaluator.NEUTRAL);
+    }
+    
+    /**
+     * Constructs a NimPlayer whose budgeted searches score the states at their
+     * search horizon with the given evaluator.
+     * 
+     * @param   MAX_REMOVAL The most stones that may be taken in one turn
+     * @param   table       Transposition table to memoize search results in
+     * @param   evaluator   Static evaluator for states at the search horizon
+     */
+    NimPlayer (int MAX_REMOVAL, TranspositionTable table, NimEvaluator evaluator) {
         this.MAX_REMOVAL = MAX_REMOVAL;
+        this.table = table;
+        this.evaluator = evaluator;
     }
     
     /**
@@ -24,8 +61,111 @@ public class NimPlayer {
      *          of [1, MAX_REMOVAL]
      */
     public int choose (int remaining) {
-    	
-        throw new UnsupportedOperationException();
+        budget = null;
+        return searchRoot(new GameTreeNode(remaining, 0, true), initialOrder(remaining), remaining);
+    }
+    
+    /**
+     * Chooses an action within the given budget by iterative deepening: searches
+     * to depth 1, 2, ... with each iteration trying the previous iteration's best
+     * action first (and the transposition table's best action first at every other
+     * node), until either the game is solved or the budget runs out, at which point
+     * the best action found so far is returned.
+     * 
+     * @param   remaining   Integer representing the amount of stones left in the pile
+     * @param   budget      Time and / or node limit for the whole search
+     * @return  An int action representing the number of stones to remove in the range
+     *          of [1, MAX_REMOVAL]
+     */
+    public int choose (int remaining, SearchBudget budget) {
+        this.budget = budget;
+        budget.start();
+        int[] order = initialOrder(remaining);
+        int bestAction = order[0];
+        
+        for (int depth = 1; depth <= remaining; depth++) {
+            GameTreeNode root = new GameTreeNode(remaining, 0, true);
+            int action = searchRoot(root, order, depth);
+            
+            // An interrupted iteration is only usable if it finished re-searching
+            // the previous best action, which it always tries first
+            if (root.score == min) { break; }
+            bestAction = action;
+            promote(order, bestAction);
+            if (budget.isExhausted() || root.score == WIN_SCORE || root.score == LOSS_SCORE) { break; }
+        }
+        
+        this.budget = null;
+        return bestAction;
+    }
+    
+    /**
+     * Exact search that splits the game tree across the given pool using the
+     * Young Brothers Wait Concept: at each node the eldest child is searched first
+     * (sequentially), and only once its score has narrowed the window are its
+     * younger siblings searched in parallel. All workers share this player's
+     * transposition table.
+     * 
+     * @param   remaining   Integer representing the amount of stones left in the pile
+     * @param   pool        ForkJoinPool to run the search on
+     * @return  The same action as choose(remaining)
+     */
+    public int chooseParallel (int remaining, ForkJoinPool pool) {
+        budget = null;
+        GameTreeNode root = new GameTreeNode(remaining, 0, true);
+        int[] order = initialOrder(remaining);
+        
+        GameTreeNode eldest = root.child(order[0]);
+        int alpha = pool.invoke(new SearchTask(eldest, min, max, false, remaining - 1));
+        root.score = alpha;
+        int bestAction = order[0];
+        if (alpha == WIN_SCORE) { return bestAction; }
+        
+        List<SearchTask> younger = new ArrayList<>();
+        for (int i = 1; i < order.length; i++) {
+            // Siblings searched concurrently can't share the root's reusable child
+            GameTreeNode child = new GameTreeNode(remaining - order[i], order[i], false);
+            younger.add(new SearchTask(child, alpha, max, false, remaining - 1));
+        }
+        for (SearchTask task : younger) {
+            pool.execute(task);
+        }
+        for (SearchTask task : younger) {
+            int score = task.join();
+            if (score > root.score) {
+                root.score = score;
+                bestAction = task.node.action;
+            }
+        }
+        return bestAction;
+    }
+    
+    /**
+     * Searches each of the root's actions in the given order to the given depth.
+     * The root is expanded here rather than in alphaBetaMinimax so that a cached
+     * score for the root state can't hide which action achieves it.
+     * 
+     * @param   root    GameTreeNode for the current state, with max to move
+     * @param   order   The actions available from the root, in the order to try them
+     * @param   depth   Number of plies to search, including the root's own move
+     * @return  The first action to achieve the best score + [Side effect] sets the root's
+     *          score, which is left at min if the budget ran out before any action finished
+     */
+    private int searchRoot (GameTreeNode root, int[] order, int depth) {
+        root.score = min;
+        int alpha = min, bestAction = order[0];
+        for (int action : order) {
+            GameTreeNode child = root.child(action);
+            int score = alphaBetaMinimax(child, alpha, max, false, depth - 1, table);
+            if (budget != null && budget.isExhausted()) { break; }
+            if (score > root.score) {
+                root.score = score;
+                bestAction = action;
+            }
+            alpha = max(score, alpha);
+            if (root.score == WIN_SCORE) { break; }
+        }
+        return bestAction;
     }
     
     /**
@@ -35,32 +175,138 @@ public class NimPlayer {
      * @param   alpha   Smallest minimax score possible
      * @param   beta    Largest minimax score possible
      * @param   isMax   Boolean representing whether the given node is a max (true) or min (false) node
-     * @param   visited Map of GameTreeNodes to their minimax scores to avoid repeating large subtrees
-     * @return  Minimax score of the given node + [Side effect] constructs the game tree originating
-     *          from the given node
-     */
-    private int alphaBetaMinimax (GameTreeNode node, int alpha, int beta, boolean isMax, Map<GameTreeNode, Integer> visited) {
-        int score;
-    	if (isMax) {
-    		score = min;
-    		for (GameTreeNode child : node.children) {
-    			if (!visited.equals(child)) {
-    				score = max(score, alphaBetaMinimax(child, alpha, beta, false, visited));
-    				alpha = max(score, alpha);
-    				if (beta <= alpha) { break; }
-    			}	
-    		} return score;
-    	} else {
-    		score = max;
-    		for (GameTreeNode child : node.children) {
-    			if (!visited.equals(node.children)) {
-    				score = min(score, alphaBetaMinimax(child, alpha, beta, false, visited));
-    				beta = min (score, beta);
-    				if (beta <= alpha) { break; } 
-    			}
-    		} return score;
-    	}
+     * @param   depth   Number of plies left to search before scoring states with the evaluator;
+     *                  searches with depth >= node.remaining are exact
+     * @param   table   Transposition table of exact scores and alpha-beta bounds for states
+     *                  already searched, to avoid repeating large subtrees
+     * @return  Minimax score of the given node + [Side effect] sets the scores of the nodes searched.
+     *          Children are generated lazily, in best-first order, and reuse the node one ply
+     *          down (see GameTreeNode.child), so only the current path is ever held in memory.
+     *          If the budget runs out mid-search the score is meaningless
+     *          and nothing is stored in the table.
+     */
+    private int alphaBetaMinimax (GameTreeNode node, int alpha, int beta, boolean isMax, int depth, TranspositionTable table) {
+        // Whoever moved into an empty pile took the last stone and won
+        if (node.remaining == 0) {
+            node.score = isMax ? LOSS_SCORE : WIN_SCORE;
+            return node.score;
+        }
+        if (budget != null && budget.tick()) { return 0; }
+        depth = min(depth, node.remaining);
+        if (depth == 0) {
+            node.score = max(LOSS_SCORE + 1, min(WIN_SCORE - 1, evaluator.evaluate(node.remaining, isMax)));
+            return node.score;
+        }
+        
+        long key = hash(node.remaining, isMax);
+        long entry = table.probe(key);
+        if (isCutoff(entry, alpha, beta, depth)) {
+            node.score = TranspositionTable.scoreOf(entry);
+            return node.score;
+        }
+        int hashAction = hashAction(entry);
+        alpha = raiseAlpha(entry, alpha, depth);
+        beta = lowerBeta(entry, beta, depth);
+        
+        int alphaOrig = alpha, betaOrig = beta;
+        int score = isMax ? min : max, bestAction = 0;
+        int actions = min(MAX_REMOVAL, node.remaining);
+        for (int i = 0; i < actions; i++) {
+            int action = orderedAction(i, hashAction, actions);
+            GameTreeNode child = node.child(action);
+            int childScore = alphaBetaMinimax(child, alpha, beta, !isMax, depth - 1, table);
+            if (budget != null && budget.isExhausted()) { return 0; }
+            if (isMax ? childScore > score : childScore < score) {
+                score = childScore;
+                bestAction = action;
+            }
+            if (isMax) {
+                alpha = max(score, alpha);
+            } else {
+                beta = min(score, beta);
+            }
+            if (beta <= alpha) { break; }
+        }
+        
+        table.store(key, score, flagOf(score, alphaOrig, betaOrig), depth, bestAction);
+        node.score = score;
+        return score;
+    }
     
+
+    /**
+     * Parallel alpha-beta search of a single subtree, under the same contract as
+     * alphaBetaMinimax (without a budget). Small subtrees fall back to the
+     * sequential search.
+     */
+    private class SearchTask extends RecursiveTask<Integer> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        final GameTreeNode node;
+        final int alpha, beta, depth;
+        final boolean isMax;
+        
+        SearchTask (GameTreeNode node, int alpha, int beta, boolean isMax, int depth) {
+            this.node = node;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.isMax = isMax;
+            this.depth = depth;
+        }
+        
+        @Override
+        protected Integer compute () {
+            if (node.remaining < MIN_SPLIT_REMAINING) {
+                return alphaBetaMinimax(node, alpha, beta, isMax, depth, table);
+            }
+            int alpha = this.alpha, beta = this.beta, depth = min(this.depth, node.remaining);
+            
+            long key = hash(node.remaining, isMax);
+            long entry = table.probe(key);
+            if (isCutoff(entry, alpha, beta, depth)) {
+                node.score = TranspositionTable.scoreOf(entry);
+                return node.score;
+            }
+            int hashAction = hashAction(entry);
+            alpha = raiseAlpha(entry, alpha, depth);
+            beta = lowerBeta(entry, beta, depth);
+            
+            // Eldest brother first, to establish a window for the rest
+            int alphaOrig = alpha, betaOrig = beta;
+            int actions = min(MAX_REMOVAL, node.remaining);
+            int bestAction = orderedAction(0, hashAction, actions);
+            GameTreeNode eldest = node.child(bestAction);
+            int score = new SearchTask(eldest, alpha, beta, !isMax, depth - 1).compute();
+            if (isMax) {
+                alpha = max(score, alpha);
+            } else {
+                beta = min(score, beta);
+            }
+            
+            // ... then the younger brothers in parallel
+            if (beta > alpha && actions > 1) {
+                List<SearchTask> younger = new ArrayList<>();
+                for (int i = 1; i < actions; i++) {
+                    int action = orderedAction(i, hashAction, actions);
+                    GameTreeNode child = new GameTreeNode(node.remaining - action, action, !isMax);
+                    younger.add(new SearchTask(child, alpha, beta, !isMax, depth - 1));
+                }
+                invokeAll(younger);
+                for (SearchTask task : younger) {
+                    int childScore = task.join();
+                    if (isMax ? childScore > score : childScore < score) {
+                        score = childScore;
+                        bestAction = task.node.action;
+                    }
+                }
+            }
+            
+            table.store(key, score, flagOf(score, alphaOrig, betaOrig), depth, bestAction);
+            node.score = score;
+            return score;
+        }
+        
     }
     
     
@@ -68,30 +314,126 @@ public class NimPlayer {
     //----------------------------------------------------------------------------------------------------
     
     public static int min (int curr, int comp) {
-    	throw new IllegalArgumentException();
+        return curr < comp ? curr : comp;
     }
     
     public static int max (int curr, int comp) {
-    	throw new IllegalArgumentException();
+        return curr > comp ? curr : comp;
+    }
+    
+    /**
+     * @param   entry   Transposition table entry for the node, or MISS
+     * @param   depth   Number of plies the node is to be searched to
+     * @return  Whether the entry settles the node's score within the window [alpha, beta]
+     *          without searching it, in which case the score is the entry's
+     */
+    private static boolean isCutoff (long entry, int alpha, int beta, int depth) {
+        if (entry == TranspositionTable.MISS || TranspositionTable.depthOf(entry) < depth) { return false; }
+        int cached = TranspositionTable.scoreOf(entry);
+        switch (TranspositionTable.flagOf(entry)) {
+            case TranspositionTable.EXACT:       return true;
+            case TranspositionTable.LOWER_BOUND: return max(alpha, cached) >= beta;
+            case TranspositionTable.UPPER_BOUND: return min(beta, cached) <= alpha;
+            default:                             return false;
+        }
+    }
+    
+    /**
+     * @return  alpha, raised to the entry's score if that's a usable lower bound
+     */
+    private static int raiseAlpha (long entry, int alpha, int depth) {
+        return entry != TranspositionTable.MISS && TranspositionTable.depthOf(entry) >= depth
+                && TranspositionTable.flagOf(entry) == TranspositionTable.LOWER_BOUND
+            ? max(alpha, TranspositionTable.scoreOf(entry)) : alpha;
+    }
+    
+    /**
+     * @return  beta, lowered to the entry's score if that's a usable upper bound
+     */
+    private static int lowerBeta (long entry, int beta, int depth) {
+        return entry != TranspositionTable.MISS && TranspositionTable.depthOf(entry) >= depth
+                && TranspositionTable.flagOf(entry) == TranspositionTable.UPPER_BOUND
+            ? min(beta, TranspositionTable.scoreOf(entry)) : beta;
+    }
+    
+    /**
+     * @return  The best action recorded in the entry (whatever its depth), or 0 for none
+     */
+    private static int hashAction (long entry) {
+        return entry == TranspositionTable.MISS ? 0 : TranspositionTable.moveOf(entry);
+    }
+    
+    /**
+     * Scores outside the original window are only bounds on the true score
+     * 
+     * @return  The table flag for a score searched with the window [alphaOrig, betaOrig]
+     */
+    private static int flagOf (int score, int alphaOrig, int betaOrig) {
+        return score <= alphaOrig ? TranspositionTable.UPPER_BOUND
+             : score >= betaOrig ? TranspositionTable.LOWER_BOUND
+             : TranspositionTable.EXACT;
+    }
+    
+    /**
+     * @param   i           Index of the action to try next
+     * @param   hashAction  Action to try first (e.g., the best found by an earlier search),
+     *                      or 0 for none
+     * @param   actions     Number of actions available
+     * @return  The i-th action to try: hashAction, then the rest in increasing order
+     */
+    private static int orderedAction (int i, int hashAction, int actions) {
+        if (hashAction < 1 || hashAction > actions) { return i + 1; }
+        if (i == 0) { return hashAction; }
+        return i < hashAction ? i : i + 1;
+    }
+    
+    private int[] initialOrder (int remaining) {
+        if (remaining < 1) {
+            throw new IllegalArgumentException("No stones left to take: " + remaining);
+        }
+        int[] order = new int[min(MAX_REMOVAL, remaining)];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i + 1;
+        }
+        return order;
+    }
+    
+    /**
+     * Moves the given action to the front of the order, keeping the rest in place
+     */
+    private static void promote (int[] order, int action) {
+        int i = 0;
+        while (order[i] != action) { i++; }
+        System.arraycopy(order, 0, order, 1, i);
+        order[0] = action;
+    }
+    
+    /**
+     * Zobrist-style key for a Nim state: the pile size feature XOR'd with the
+     * side-to-move key on max's turn
+     */
+    static long hash (int remaining, boolean isMax) {
+        return TranspositionTable.zobrist(0, remaining) ^ (isMax ? TranspositionTable.SIDE_TO_MOVE : 0L);
     }
 
 }
 
 /**
- * GameTreeNode to manage the Nim game tree.
+ * GameTreeNode to manage the Nim game tree. The tree is never materialized:
+ * each node owns a single reusable child node that successors are generated
+ * into on demand, so the nodes along the current search path double as a
+ * per-ply node pool and memory is bounded by search depth, not tree size.
  */
 class GameTreeNode {
     
     int remaining, action, score;
     boolean isMax;
-    ArrayList<GameTreeNode> children;
+    private GameTreeNode next;
     
     /**
      * Constructs a new GameTreeNode with the given number of stones
-     * remaining in the pile, and the action that led to it. We also
-     * initialize an empty ArrayList of children that can be added-to
-     * during search, and a placeholder score of -1 to be updated during
-     * search.
+     * remaining in the pile, and the action that led to it, with a
+     * placeholder score of -1 to be updated during search.
      * 
      * @param   remaining   The Nim game state represented by this node: the #
      *          of stones remaining in the pile
@@ -99,10 +441,30 @@ class GameTreeNode {
      * @param   isMax   Boolean as to whether or not this is a maxnode
      */
     GameTreeNode (int remaining, int action, boolean isMax) {
+        reset(remaining, action, isMax);
+    }
+    
+    /**
+     * Generates the successor reached by the given action, reusing the node
+     * generated for this node's previous successor if there was one. The
+     * previous successor (and everything below it) is invalidated.
+     * 
+     * @param   action  The action (# of stones removed) to take from this node
+     * @return  The child node representing the resulting state
+     */
+    GameTreeNode child (int action) {
+        if (next == null) {
+            next = new GameTreeNode(remaining - action, action, !isMax);
+        } else {
+            next.reset(remaining - action, action, !isMax);
+        }
+        return next;
+    }
+    
+    private void reset (int remaining, int action, boolean isMax) {
         this.remaining = remaining;
         this.action = action;
         this.isMax = isMax;
-        children = new ArrayList<>();
         score = -1;
     }
     
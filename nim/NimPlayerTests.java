@@ -1,6 +1,7 @@
 package nim;
 
 import static org.junit.Assert.*;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
@@ -99,5 +100,91 @@ public class NimPlayerTests {
         NimPlayer nimesis = new NimPlayer(3);
         assertEquals(1, nimesis.choose(1000));
     }
+    
+    /**
+     * Budgeted search with room to solve the game
+     * should agree with the exact search
+     */
+    @Test
+    public void NimPlayerTest_t8() {
+        NimPlayer nimesis = new NimPlayer(3);
+        assertEquals(2, nimesis.choose(10, SearchBudget.nodes(100000)));
+        assertEquals(1, nimesis.choose(9, SearchBudget.millis(1000)));
+        assertEquals(3, nimesis.choose(39, SearchBudget.nodes(100000)));
+    }
+    
+    /**
+     * Budget too small to see the end of the game: the
+     * evaluator has to carry the search
+     */
+    @Test
+    public void NimPlayerTest_t9() {
+        NimPlayer nimesis = new NimPlayer(3, new TranspositionTable(1 << 10), NimEvaluator.modular(3));
+        assertEquals(1, nimesis.choose(1000, SearchBudget.nodes(50)));
+        assertEquals(3, nimesis.choose(999, SearchBudget.nodes(50)));
+        assertEquals(2, nimesis.choose(100002, SearchBudget.nodes(2000)));
+        
+        // A time budget only bounds how long the search takes; what it finds
+        // in that time depends on the machine, so only legality is checked
+        long start = System.nanoTime();
+        int action = nimesis.choose(100002, SearchBudget.millis(50));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(action >= 1 && action <= 3);
+        assertTrue("Took " + elapsedMillis + " ms on a 50 ms budget", elapsedMillis < 1000);
+    }
+    
+    /**
+     * Parallel search should pick exactly what the
+     * sequential search picks
+     */
+    @Test
+    public void NimPlayerTest_t10() {
+        NimPlayer sequential = new NimPlayer(4), parallel = new NimPlayer(4);
+        for (int remaining = 1; remaining <= 300; remaining++) {
+            assertEquals(sequential.choose(remaining), parallel.chooseParallel(remaining, ForkJoinPool.commonPool()));
+        }
+    }
+    
+    /**
+     * Simulator bookkeeping: every agent move is sampled until a
+     * worker's reservoir fills, and warm tables are reused
+     * across games while cold ones are recreated every game
+     */
+    @Test
+    public void NimPlayerTest_t11() throws Exception {
+        NimSimulator.Report warm = NimSimulator.simulate(8, 4, false, false, 100, 3);
+        assertEquals(8, warm.games);
+        assertEquals(warm.agentMoves, warm.samples);
+        assertEquals(2 * 4, warm.agents);
+        
+        NimSimulator.Report cold = NimSimulator.simulate(7, 3, false, true, 100, 3);
+        assertEquals(cold.agentMoves, cold.samples);
+        assertEquals(2 * 7, cold.agents);
+        
+        // Over 2 * 65536 moves per worker, so both reservoirs fill
+        NimSimulator.Report full = NimSimulator.simulate(4000, 2, false, false, 100, 3);
+        assertTrue(full.agentMoves > 2 * NimSimulator.LATENCY_SAMPLES);
+        assertEquals(2 * NimSimulator.LATENCY_SAMPLES, full.samples);
+        assertTrue(full.p50 <= full.p99 && full.p99 <= full.maxSampled);
+    }
+    
+    /**
+     * Simulations against the seeded random player replay exactly,
+     * and bad arguments are rejected
+     */
+    @Test
+    public void NimPlayerTest_t12() throws Exception {
+        NimSimulator.Report first = NimSimulator.simulate(500, 3, true, false, 30, 3);
+        NimSimulator.Report second = NimSimulator.simulate(500, 3, true, false, 30, 3);
+        assertEquals(first.agentMoves, second.agentMoves);
+        assertEquals(first.firstWins, second.firstWins);
+        assertEquals(500, first.firstWins);
+        
+        try {
+            NimSimulator.simulate(10, 0, false, false, 100, 3);
+            fail("Simulated on no threads");
+        } catch (IllegalArgumentException e) {
+        }
+    }
 
 }
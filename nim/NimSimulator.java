@@ -0,0 +1,215 @@
+package nim;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless driver for load-testing the Nim agent: plays many agent-vs-agent or
+ * agent-vs-random games across worker threads, and reports throughput, per-move
+ * latency percentiles of the agent, and win rates. Nothing is printed until all
+ * games are done.
+ *
+ * By default each worker's agents keep their transposition tables from game to
+ * game, so after the first game most moves are table hits and the latencies are
+ * those of a warm table; "cold" gives the agents fresh tables every game, so
+ * that the latencies are those of the search itself.
+ *
+ * Usage: NimSimulator [games] [threads] [agent|random] [INIT_STATE] [MAX_REMOVAL] [warm|cold]
+ */
+public class NimSimulator {
+
+    // Agent move latencies kept per worker for computing percentiles
+    static final int LATENCY_SAMPLES = 1 << 16;
+
+    public static void main (String[] args) throws Exception {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        boolean vsRandom = args.length > 2 && args[2].equals("random");
+        int initState = args.length > 3 ? Integer.parseInt(args[3]) : NimGame.INIT_STATE;
+        int maxRemoval = args.length > 4 ? Integer.parseInt(args[4]) : NimGame.MAX_REMOVAL;
+        boolean coldTables = args.length > 5 && args[5].equals("cold");
+
+        System.out.println(simulate(games, threads, vsRandom, coldTables, initState, maxRemoval));
+    }
+
+    /**
+     * Plays the given number of games, split evenly among the given number of
+     * worker threads. Each worker has its own agents (and so its own transposition
+     * tables), so workers never contend with one another.
+     *
+     * @param   games       Total number of games to play
+     * @param   threads     Number of worker threads
+     * @param   vsRandom    Whether the second player picks uniformly random legal
+     *                      moves (true) or is another agent (false)
+     * @param   coldTables  Whether the agents start every game with empty transposition
+     *                      tables (true) or keep them from game to game (false)
+     * @param   initState   Stones in the pile at the start of each game
+     * @param   maxRemoval  The most stones that may be taken in one turn
+     * @return  Report of throughput, agent move latencies and win rates
+     */
+    public static Report simulate (long games, int threads, boolean vsRandom, boolean coldTables, int initState,
+            int maxRemoval) throws Exception {
+        if (games < 0) {
+            throw new IllegalArgumentException("Negative number of games: " + games);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread: " + threads);
+        }
+        if (initState < 1 || maxRemoval < 1) {
+            throw new IllegalArgumentException("Invalid game: INIT_STATE " + initState + ", MAX_REMOVAL " + maxRemoval);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Worker[] workers = new Worker[threads];
+            Future<?>[] futures = new Future<?>[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                long share = games / threads + (t < games % threads ? 1 : 0);
+                workers[t] = new Worker(share, vsRandom, coldTables, initState, maxRemoval, t);
+                futures[t] = pool.submit(workers[t]);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return new Report(workers, System.nanoTime() - start, vsRandom, coldTables);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays its share of games, recording results into primitive counters and a
+     * reservoir sample of move latencies
+     */
+    private static class Worker implements Runnable {
+
+        final long games;
+        final boolean vsRandom, coldTables;
+        final int initState, maxRemoval;
+        final SplittableRandom random;
+        final long[] latencies = new long[LATENCY_SAMPLES];
+        long firstWins, moves, agents;
+
+        Worker (long games, boolean vsRandom, boolean coldTables, int initState, int maxRemoval, int seed) {
+            this.games = games;
+            this.vsRandom = vsRandom;
+            this.coldTables = coldTables;
+            this.initState = initState;
+            this.maxRemoval = maxRemoval;
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public void run () {
+            NimPlayer first = null, second = null;
+            for (long g = 0; g < games; g++) {
+                if (first == null || coldTables) {
+                    first = new NimPlayer(maxRemoval);
+                    second = new NimPlayer(maxRemoval);
+                    agents += 2;
+                }
+                int remaining = initState;
+                boolean firstsTurn = true;
+                while (remaining > 0) {
+                    int taken;
+                    if (!firstsTurn && vsRandom) {
+                        taken = 1 + random.nextInt(Math.min(maxRemoval, remaining));
+                    } else {
+                        long before = System.nanoTime();
+                        taken = (firstsTurn ? first : second).choose(remaining);
+                        record(System.nanoTime() - before);
+                    }
+                    remaining -= taken;
+                    firstsTurn = !firstsTurn;
+                }
+                // Whoever took the last stone wins, and the turn has passed since
+                if (!firstsTurn) { firstWins++; }
+            }
+        }
+
+        private void record (long nanos) {
+            if (moves < LATENCY_SAMPLES) {
+                latencies[(int) moves] = nanos;
+            } else {
+                long slot = random.nextLong(moves + 1);
+                if (slot < LATENCY_SAMPLES) { latencies[(int) slot] = nanos; }
+            }
+            moves++;
+        }
+
+    }
+
+    /**
+     * Summary of a simulation run
+     */
+    public static class Report {
+
+        public final long games, agentMoves, firstWins, elapsedNanos;
+        // Latencies kept for the percentiles, and agents (each with its own table) created
+        public final long samples, agents;
+        public final long p50, p90, p99, p999, maxSampled;
+        private final boolean vsRandom, coldTables;
+
+        private Report (Worker[] workers, long elapsedNanos, boolean vsRandom, boolean coldTables) {
+            long games = 0, moves = 0, firstWins = 0, agents = 0;
+            int sampled = 0;
+            for (Worker w : workers) {
+                games += w.games;
+                moves += w.moves;
+                firstWins += w.firstWins;
+                agents += w.agents;
+                sampled += (int) Math.min(w.moves, LATENCY_SAMPLES);
+            }
+
+            // Samples are merged unweighted: workers play equal shares of games,
+            // so each sample stands for roughly the same number of moves
+            long[] samples = new long[sampled];
+            int at = 0;
+            for (Worker w : workers) {
+                int n = (int) Math.min(w.moves, LATENCY_SAMPLES);
+                System.arraycopy(w.latencies, 0, samples, at, n);
+                at += n;
+            }
+            Arrays.sort(samples);
+
+            this.games = games;
+            this.agentMoves = moves;
+            this.firstWins = firstWins;
+            this.samples = sampled;
+            this.agents = agents;
+            this.elapsedNanos = elapsedNanos;
+            this.vsRandom = vsRandom;
+            this.coldTables = coldTables;
+            p50 = percentile(samples, 0.50);
+            p90 = percentile(samples, 0.90);
+            p99 = percentile(samples, 0.99);
+            p999 = percentile(samples, 0.999);
+            maxSampled = sampled == 0 ? 0 : samples[sampled - 1];
+        }
+
+        private static long percentile (long[] sorted, double p) {
+            return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, (long) (p * sorted.length))];
+        }
+
+        public double gamesPerSecond () {
+            return games / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString () {
+            return String.format(
+                "games: %d in %.3f s (%.0f games/s)%n" +
+                "agent moves: %d, %s-table latency ns p50=%d p90=%d p99=%d p99.9=%d max(sampled)=%d%n" +
+                "first player (agent) wins: %.2f%%, second player (%s) wins: %.2f%%",
+                games, elapsedNanos / 1e9, gamesPerSecond(),
+                agentMoves, coldTables ? "cold" : "warm", p50, p90, p99, p999, maxSampled,
+                100.0 * firstWins / Math.max(1, games), vsRandom ? "random" : "agent",
+                100.0 * (games - firstWins) / Math.max(1, games));
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package nim;
+
+/**
+ * Limit on the time and / or number of nodes a single budgeted search may use.
+ * A SearchBudget is restarted at the start of every search, so one instance can
+ * be reused across moves, but not by two searches running at once.
+ */
+public class SearchBudget {
+    
+    // How many nodes are searched between checks of the clock
+    private static final int CLOCK_INTERVAL = 1 << 10;
+    
+    private final long timeLimitNanos, nodeLimit;
+    private long deadline, nodes;
+    private boolean exhausted;
+    
+    private SearchBudget (long timeLimitNanos, long nodeLimit) {
+        if (timeLimitNanos <= 0 || nodeLimit <= 0) {
+            throw new IllegalArgumentException("Search budget must be positive");
+        }
+        this.timeLimitNanos = timeLimitNanos;
+        this.nodeLimit = nodeLimit;
+    }
+    
+    /**
+     * @param   millis  Wall-clock time allowed per search, in milliseconds
+     * @return  Budget limited only by time
+     */
+    public static SearchBudget millis (long millis) {
+        return new SearchBudget(millis * 1_000_000L, Long.MAX_VALUE);
+    }
+    
+    /**
+     * @param   nodes   Number of game tree nodes allowed per search
+     * @return  Budget limited only by nodes searched
+     */
+    public static SearchBudget nodes (long nodes) {
+        return new SearchBudget(Long.MAX_VALUE, nodes);
+    }
+    
+    /**
+     * @param   millis  Wall-clock time allowed per search, in milliseconds
+     * @param   nodes   Number of game tree nodes allowed per search
+     * @return  Budget that runs out when either limit is reached
+     */
+    public static SearchBudget of (long millis, long nodes) {
+        return new SearchBudget(millis * 1_000_000L, nodes);
+    }
+    
+    /**
+     * Resets the node count and starts the clock for a new search
+     */
+    void start () {
+        nodes = 0;
+        exhausted = false;
+        long now = System.nanoTime();
+        deadline = (timeLimitNanos > Long.MAX_VALUE - now) ? Long.MAX_VALUE : now + timeLimitNanos;
+    }
+    
+    /**
+     * Charges the budget for one more node searched.
+     * @return  Whether the budget has now run out
+     */
+    boolean tick () {
+        nodes++;
+        if (nodes > nodeLimit || (nodes % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadline)) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+    
+    boolean isExhausted () {
+        return exhausted;
+    }
+    
+    public long nodesSearched () {
+        return nodes;
+    }
+    
+}
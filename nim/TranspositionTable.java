@@ -0,0 +1,178 @@
+package nim;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, open-addressed transposition table for alpha-beta game-tree search.
+ * Game states are identified by a 64-bit Zobrist-style hash, and each entry records
+ * the score found for that state, whether that score is exact or only a lower / upper
+ * bound (as left behind by a pruned subtree), the depth it was searched to, and the
+ * best action found. The table never grows, so memory stays flat however deep the
+ * search goes; when a probe window is full, the shallowest entry is replaced.
+ * 
+ * The table may be shared by searches running on several threads without locking:
+ * each slot stores its key XOR'd with its entry, so a slot caught mid-update by
+ * another thread simply fails verification and reads as a miss. Slots are read and
+ * written with opaque access, which (unlike plain long array elements, per JLS 17.7)
+ * can't tear a 64-bit word in half, but adds no fences.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 1, LOWER_BOUND = 2, UPPER_BOUND = 3;
+
+    /**
+     * Returned by probe when the state has no entry in the table
+     */
+    public static final long MISS = 0L;
+
+    // Number of consecutive slots examined per key before replacing
+    private static final int PROBE_WINDOW = 4;
+    private static final int MAX_DEPTH = 0xFFFF, MAX_MOVE = 0x3FFF;
+
+    // Key reserved for the side-to-move component of Zobrist-style hashes
+    public static final long SIDE_TO_MOVE = mix(0x9E3779B97F4A7C15L);
+
+    private final AtomicLongArray keys, entries;
+    private final int mask;
+
+    /**
+     * Constructs a new TranspositionTable holding (at least) the given number of
+     * entries, rounded up to the next power of two.
+     *
+     * @param   capacity    Maximum number of entries to hold at once
+     */
+    public TranspositionTable (int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) { size <<= 1; }
+        keys = new AtomicLongArray(size);
+        entries = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Zobrist-style hash component for a single feature of a game state (e.g.,
+     * the size of a given pile); the hash of a full state is the XOR of the
+     * components for each of its features, plus SIDE_TO_MOVE on max's turn.
+     *
+     * @param   feature Index of the feature being hashed
+     * @param   value   Value of that feature in the state being hashed
+     * @return  64-bit pseudo-random key for the (feature, value) pair
+     */
+    public static long zobrist (int feature, int value) {
+        return mix(((long) feature << 32) ^ (value & 0xFFFFFFFFL) ^ 0xD1B54A32D192ED03L);
+    }
+
+    /**
+     * Looks up the entry stored for the given key.
+     *
+     * @param   key The hash of the game state to look up
+     * @return  The packed entry for that state, to be read with scoreOf, flagOf,
+     *          depthOf and moveOf, or MISS if there is none
+     */
+    public long probe (long key) {
+        int index = (int) key & mask;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (index + i) & mask;
+            long entry = entries.getOpaque(slot);
+            if (entry != MISS && (keys.getOpaque(slot) ^ entry) == key) {
+                return entry;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Records the result of searching the state with the given key. An existing
+     * entry for the same state is always overwritten; otherwise the first empty
+     * slot in the probe window is used, and failing that, the entry searched to
+     * the shallowest depth is evicted.
+     *
+     * @param   key     The hash of the game state searched
+     * @param   score   Score found for the state
+     * @param   flag    One of EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param   depth   Depth (plies) the state was searched to
+     * @param   move    Best action found from the state, 0 if none
+     */
+    public void store (long key, int score, int flag, int depth, int move) {
+        int index = (int) key & mask, victim = -1, victimDepth = Integer.MAX_VALUE;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (index + i) & mask;
+            long entry = entries.getOpaque(slot);
+            if (entry == MISS || (keys.getOpaque(slot) ^ entry) == key) {
+                victim = slot;
+                break;
+            }
+            if (depthOf(entry) < victimDepth) {
+                victim = slot;
+                victimDepth = depthOf(entry);
+            }
+        }
+        long entry = pack(score, flag, depth, move);
+        keys.setOpaque(victim, key ^ entry);
+        entries.setOpaque(victim, entry);
+    }
+
+    /**
+     * Empties the table; not to be called while a search is using it
+     */
+    public void clear () {
+        for (int slot = 0; slot < entries.length(); slot++) {
+            entries.setOpaque(slot, MISS);
+        }
+    }
+
+    public int capacity () {
+        return entries.length();
+    }
+
+
+    // Entry Accessors:
+    //----------------------------------------------------------------------------------------------------
+
+    public static int scoreOf (long entry) {
+        return (int) entry;
+    }
+
+    public static int depthOf (long entry) {
+        return (int) (entry >>> 32) & MAX_DEPTH;
+    }
+
+    public static int moveOf (long entry) {
+        return (int) (entry >>> 48) & MAX_MOVE;
+    }
+
+    public static int flagOf (long entry) {
+        return (int) (entry >>> 62);
+    }
+
+
+    // Helper Methods:
+    //----------------------------------------------------------------------------------------------------
+
+    /**
+     * Packs an entry as [flag:2 | move:14 | depth:16 | score:32]; the flag is
+     * never 0 for a stored entry, which keeps packed entries distinct from MISS
+     */
+    private static long pack (int score, int flag, int depth, int move) {
+        if (flag < EXACT || flag > UPPER_BOUND) {
+            throw new IllegalArgumentException("Unknown entry flag: " + flag);
+        }
+        long d = Math.min(Math.max(depth, 0), MAX_DEPTH);
+        long m = (move > 0 && move <= MAX_MOVE) ? move : 0;
+        return (score & 0xFFFFFFFFL) | (d << 32) | (m << 48) | ((long) flag << 62);
+    }
+
+    /**
+     * SplitMix64 finalizer, used to spread structured state features over all
+     * 64 bits of the key
+     */
+    private static long mix (long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}